@@ -0,0 +1,66 @@
+package www.ppkok.com.jyfac;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.I_Result;
+
+/**
+ * 配置快照发布
+ * 后台刷新替换快照的同时渲染线程读取快照，读到的配置只能是完整的旧版本或完整的新版本
+ */
+@JCStressTest
+@Outcome(id = "1", expect = ACCEPTABLE, desc = "读到刷新前的快照")
+@Outcome(id = "2", expect = ACCEPTABLE, desc = "读到刷新后的快照")
+@Outcome(expect = FORBIDDEN, desc = "读到的配置混用了两个版本或不完整")
+@State
+public class JyfacSettingSnapshotStress {
+    
+    private static final JyfacSetting BEFORE = JyfacStressSupport.setting(Map.of(
+        "text", "旧公告", "borderRadius", 10, "injectMode", "inline"));
+    
+    private static final JyfacSetting AFTER = JyfacStressSupport.setting(Map.of(
+        "text", "新公告", "borderRadius", 30, "injectMode", "bootstrap"));
+    
+    private final AtomicReference<JyfacSetting> configMap = new AtomicReference<>(BEFORE);
+    
+    private final JyfacService service =
+        new JyfacService(JyfacStressSupport.settingFetcher(configMap::get), JyfacStressSupport.METRICS);
+    
+    public JyfacSettingSnapshotStress() {
+        service.refresh().block();
+        configMap.set(AFTER);
+    }
+    
+    @Actor
+    public void admin() {
+        service.refresh().block();
+    }
+    
+    @Actor
+    public void render(I_Result result) {
+        JyfacSetting setting = service.peekSetting();
+        result.r1 = version(setting);
+    }
+    
+    private static int version(JyfacSetting setting) {
+        if (setting == null) {
+            return 0;
+        }
+        if (BEFORE.text().equals(setting.text()) && BEFORE.borderRadius().equals(setting.borderRadius())
+            && BEFORE.injectMode().equals(setting.injectMode())) {
+            return 1;
+        }
+        if (AFTER.text().equals(setting.text()) && AFTER.borderRadius().equals(setting.borderRadius())
+            && AFTER.injectMode().equals(setting.injectMode())) {
+            return 2;
+        }
+        return -1;
+    }
+}
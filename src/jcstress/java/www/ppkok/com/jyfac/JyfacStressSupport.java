@@ -0,0 +1,93 @@
+package www.ppkok.com.jyfac;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.context.IWebContext;
+import org.thymeleaf.web.IWebExchange;
+import org.thymeleaf.web.IWebRequest;
+import reactor.core.publisher.Mono;
+import run.halo.app.plugin.ReactiveSettingFetcher;
+
+/**
+ * 并发测试用的桩对象
+ * 使用动态代理实现Halo和Thymeleaf接口，桩对象本身无状态，可在测试实例之间共享
+ */
+final class JyfacStressSupport {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    /**
+     * 所有测试实例共享的指标，未开启指标时不会写入
+     */
+    static final JyfacMetrics METRICS = new JyfacMetrics(new SimpleMeterRegistry());
+    
+    private JyfacStressSupport() {
+    }
+    
+    /**
+     * 在默认设置基础上覆盖部分配置项
+     */
+    @SuppressWarnings("unchecked")
+    static JyfacSetting setting(Map<String, Object> overrides) {
+        Map<String, Object> values = MAPPER.convertValue(JyfacSetting.defaultSetting(), Map.class);
+        values.putAll(overrides);
+        return MAPPER.convertValue(values, JyfacSetting.class);
+    }
+    
+    /**
+     * 每次调用fetch都同步返回给定配置的设置获取器
+     */
+    static ReactiveSettingFetcher settingFetcher(Supplier<JyfacSetting> setting) {
+        return (ReactiveSettingFetcher) Proxy.newProxyInstance(
+            ReactiveSettingFetcher.class.getClassLoader(),
+            new Class<?>[] {ReactiveSettingFetcher.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "fetch" -> Mono.fromSupplier(setting);
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> "StubSettingFetcher";
+                default -> Mono.empty();
+            });
+    }
+    
+    /**
+     * 普通浏览器访问指定路径的模板上下文
+     */
+    static ITemplateContext webContext(String path) {
+        IWebRequest request = (IWebRequest) Proxy.newProxyInstance(
+            IWebRequest.class.getClassLoader(),
+            new Class<?>[] {IWebRequest.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getMethod" -> "GET";
+                case "getPathWithinApplication" -> path;
+                case "getHeaderValue" -> "User-Agent".equalsIgnoreCase((String) args[0])
+                    ? "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 Chrome/126.0 Safari/537.36"
+                    : null;
+                default -> defaultValue(method.getReturnType());
+            });
+        IWebExchange exchange = (IWebExchange) Proxy.newProxyInstance(
+            IWebExchange.class.getClassLoader(),
+            new Class<?>[] {IWebExchange.class},
+            (proxy, method, args) -> "getRequest".equals(method.getName())
+                ? request : defaultValue(method.getReturnType()));
+        return (ITemplateContext) Proxy.newProxyInstance(
+            ITemplateContext.class.getClassLoader(),
+            new Class<?>[] {ITemplateContext.class, IWebContext.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getExchange" -> exchange;
+                case "getLocale" -> Locale.SIMPLIFIED_CHINESE;
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> defaultValue(method.getReturnType());
+            });
+    }
+    
+    private static Object defaultValue(Class<?> type) {
+        return type == boolean.class ? Boolean.FALSE : null;
+    }
+}
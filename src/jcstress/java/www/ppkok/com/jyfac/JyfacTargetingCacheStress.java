@@ -0,0 +1,41 @@
+package www.ppkok.com.jyfac;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import java.util.Map;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.II_Result;
+import org.thymeleaf.context.ITemplateContext;
+
+/**
+ * 投放规则缓存发布
+ * 两个渲染线程分别使用新旧配置判断同一页面，编译后的规则与配置快照一起发布，任何线程都不会用到另一份配置的规则
+ */
+@JCStressTest
+@Outcome(id = "1, 1", expect = ACCEPTABLE, desc = "两份配置各自使用自己的规则")
+@Outcome(expect = FORBIDDEN, desc = "使用了另一份配置的规则")
+@State
+public class JyfacTargetingCacheStress {
+    
+    private static final ITemplateContext HOME = JyfacStressSupport.webContext("/");
+    
+    private static final JyfacSetting EXCLUDE_HOME = JyfacStressSupport.setting(Map.of("excludePaths", "/"));
+    
+    private static final JyfacSetting ALL_PAGES = JyfacStressSupport.setting(Map.of());
+    
+    private final JyfacTargetingService targetingService = new JyfacTargetingService();
+    
+    @Actor
+    public void oldSetting(II_Result result) {
+        result.r1 = "route".equals(targetingService.skipReason(HOME, EXCLUDE_HOME)) ? 1 : 0;
+    }
+    
+    @Actor
+    public void newSetting(II_Result result) {
+        result.r2 = targetingService.skipReason(HOME, ALL_PAGES) == null ? 1 : 0;
+    }
+}
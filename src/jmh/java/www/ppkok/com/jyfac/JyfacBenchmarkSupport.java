@@ -0,0 +1,118 @@
+package www.ppkok.com.jyfac;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.model.IModelFactory;
+import org.thymeleaf.spring6.SpringWebFluxTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import run.halo.app.extension.ReactiveExtensionClient;
+import run.halo.app.plugin.ReactiveSettingFetcher;
+
+/**
+ * 基准测试用的桩对象
+ * 使用动态代理实现Halo和Thymeleaf接口，避免模拟框架的额外开销
+ */
+final class JyfacBenchmarkSupport {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    private JyfacBenchmarkSupport() {
+    }
+    
+    /**
+     * 在默认设置基础上覆盖部分配置项
+     */
+    @SuppressWarnings("unchecked")
+    static JyfacSetting setting(Map<String, Object> overrides) {
+        Map<String, Object> values = MAPPER.convertValue(JyfacSetting.defaultSetting(), Map.class);
+        values.putAll(overrides);
+        return MAPPER.convertValue(values, JyfacSetting.class);
+    }
+    
+    /**
+     * 使用独立内存注册表的指标
+     */
+    static JyfacMetrics metrics() {
+        return new JyfacMetrics(new SimpleMeterRegistry());
+    }
+    
+    /**
+     * 生成指定行数的多行公告内容
+     */
+    static String multiLineTexts(int lines) {
+        StringBuilder texts = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            if (i > 0) {
+                texts.append('\n');
+            }
+            texts.append("第").append(i + 1).append("条公告：系统将于今晚22:00-24:00进行维护升级，请提前保存数据");
+        }
+        return texts.toString();
+    }
+    
+    /**
+     * 每次调用fetch都返回给定配置的设置获取器
+     */
+    static ReactiveSettingFetcher settingFetcher(Supplier<JyfacSetting> setting) {
+        return (ReactiveSettingFetcher) Proxy.newProxyInstance(
+            ReactiveSettingFetcher.class.getClassLoader(),
+            new Class<?>[] {ReactiveSettingFetcher.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "fetch" -> Mono.fromSupplier(setting);
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> "StubSettingFetcher";
+                default -> Mono.empty();
+            });
+    }
+    
+    /**
+     * 没有定时公告时的渲染包服务
+     */
+    static JyfacBundleService bundleService(JyfacService service, JyfacMetrics metrics) {
+        ReactiveExtensionClient client = (ReactiveExtensionClient) Proxy.newProxyInstance(
+            ReactiveExtensionClient.class.getClassLoader(),
+            new Class<?>[] {ReactiveExtensionClient.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "list" -> Flux.empty();
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> "StubExtensionClient";
+                default -> Mono.empty();
+            });
+        JyfacAnnouncementService announcementService = new JyfacAnnouncementService(client, event -> {
+        });
+        return new JyfacBundleService(new JyfacBundleCompiler(), metrics, service, announcementService);
+    }
+    
+    /**
+     * 与Halo相同的模板引擎的模型工厂，标准方言依赖的表达式语言为SpEL
+     */
+    static IModelFactory modelFactory() {
+        return new SpringWebFluxTemplateEngine().getConfiguration().getModelFactory(TemplateMode.HTML);
+    }
+    
+    /**
+     * 只提供模型工厂和语言环境的模板上下文
+     */
+    static ITemplateContext templateContext(IModelFactory modelFactory) {
+        return (ITemplateContext) Proxy.newProxyInstance(
+            ITemplateContext.class.getClassLoader(),
+            new Class<?>[] {ITemplateContext.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getModelFactory" -> modelFactory;
+                case "getLocale" -> Locale.SIMPLIFIED_CHINESE;
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> "StubTemplateContext";
+                default -> null;
+            });
+    }
+}
@@ -0,0 +1,61 @@
+package www.ppkok.com.jyfac;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 渲染包生成基准
+ * 分别测量各段内容的生成开销，以及配置变更时完整编译一次的开销
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class JyfacBundleCompilerBenchmark {
+    
+    @Param({"single", "multi"})
+    public String displayMode;
+    
+    @Param({"500"})
+    public int lines;
+    
+    private JyfacSetting setting;
+    
+    private JyfacBundleCompiler compiler;
+    
+    @Setup
+    public void setup() {
+        setting = JyfacBenchmarkSupport.setting(Map.of(
+            "displayMode", displayMode,
+            "multiLineTexts", JyfacBenchmarkSupport.multiLineTexts(lines)
+        ));
+        compiler = new JyfacBundleCompiler();
+    }
+    
+    @Benchmark
+    public String generateCssContent() {
+        return compiler.generateCssContent(setting);
+    }
+    
+    @Benchmark
+    public String generateJavaScriptContent() {
+        return compiler.generateJavaScriptContent(setting, "0000000000000000", "");
+    }
+    
+    @Benchmark
+    public String generateHtmlContent() {
+        return compiler.generateHtmlContent(setting);
+    }
+    
+    @Benchmark
+    public JyfacRenderBundle compile() {
+        return compiler.compile(setting);
+    }
+}
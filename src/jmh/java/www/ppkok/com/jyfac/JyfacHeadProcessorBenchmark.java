@@ -0,0 +1,64 @@
+package www.ppkok.com.jyfac;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IModelFactory;
+
+/**
+ * 头部注入热路径基准
+ * 测量每次页面渲染时 {@link JyfacHeadProcessor#process} 的吞吐量和分配速率
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class JyfacHeadProcessorBenchmark {
+    
+    @Param({"single", "multi"})
+    public String displayMode;
+    
+    @Param({"inline", "external", "bootstrap"})
+    public String injectMode;
+    
+    @Param({"500"})
+    public int lines;
+    
+    private IModelFactory modelFactory;
+    
+    private ITemplateContext context;
+    
+    private JyfacHeadProcessor processor;
+    
+    @Setup
+    public void setup() {
+        JyfacSetting setting = JyfacBenchmarkSupport.setting(Map.of(
+            "displayMode", displayMode,
+            "injectMode", injectMode,
+            "multiLineTexts", JyfacBenchmarkSupport.multiLineTexts(lines)
+        ));
+        JyfacMetrics metrics = JyfacBenchmarkSupport.metrics();
+        JyfacService service = new JyfacService(
+            JyfacBenchmarkSupport.settingFetcher(() -> setting), metrics);
+        processor = new JyfacHeadProcessor(service,
+            JyfacBenchmarkSupport.bundleService(service, metrics),
+            new JyfacTargetingService(), metrics);
+        modelFactory = JyfacBenchmarkSupport.modelFactory();
+        context = JyfacBenchmarkSupport.templateContext(modelFactory);
+    }
+    
+    @Benchmark
+    public IModel process() {
+        IModel model = modelFactory.createModel();
+        processor.process(context, model, null).block();
+        return model;
+    }
+}
@@ -0,0 +1,51 @@
+package www.ppkok.com.jyfac;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 配置获取基准
+ * 对比每次合并四组配置与读取内存快照的开销
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class JyfacServiceBenchmark {
+    
+    @Param({"single", "multi"})
+    public String displayMode;
+    
+    @Param({"500"})
+    public int lines;
+    
+    private JyfacService service;
+    
+    @Setup
+    public void setup() {
+        JyfacSetting setting = JyfacBenchmarkSupport.setting(Map.of(
+            "displayMode", displayMode,
+            "multiLineTexts", JyfacBenchmarkSupport.multiLineTexts(lines)
+        ));
+        JyfacMetrics metrics = JyfacBenchmarkSupport.metrics();
+        service = new JyfacService(
+            JyfacBenchmarkSupport.settingFetcher(() -> setting), metrics);
+    }
+    
+    @Benchmark
+    public JyfacSetting getCompleteSetting() {
+        return service.getCompleteSetting().block();
+    }
+    
+    @Benchmark
+    public JyfacSetting getSetting() {
+        return service.getSetting().block();
+    }
+}
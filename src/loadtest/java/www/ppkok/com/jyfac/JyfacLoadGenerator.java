@@ -0,0 +1,137 @@
+package www.ppkok.com.jyfac;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 本地HTTP压测客户端
+ * 固定并发的闭环压测：每个虚拟用户收到响应后立即发起下一次请求，预热阶段的数据不计入结果
+ */
+final class JyfacLoadGenerator {
+    
+    private final int concurrency;
+    
+    private final Duration warmup;
+    
+    private final Duration duration;
+    
+    JyfacLoadGenerator(int concurrency, Duration warmup, Duration duration) {
+        this.concurrency = concurrency;
+        this.warmup = warmup;
+        this.duration = duration;
+    }
+    
+    /**
+     * 对指定地址压测
+     * @param url 页面地址
+     * @return 压测结果
+     */
+    Result run(String url) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+            .timeout(Duration.ofSeconds(30))
+            .GET()
+            .build();
+        long measureStart = System.nanoTime() + warmup.toNanos();
+        long measureEnd = measureStart + duration.toNanos();
+        List<Future<Worker>> futures = new ArrayList<>(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(executor.submit(() -> new Worker().run(client, request, measureStart, measureEnd)));
+            }
+        }
+        long[] latencies = new long[0];
+        long requests = 0;
+        long errors = 0;
+        long bytes = 0;
+        for (Future<Worker> future : futures) {
+            Worker worker = future.get();
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + worker.count);
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            requests += worker.count;
+            errors += worker.errors;
+            bytes = Math.max(bytes, worker.bytes);
+        }
+        Arrays.sort(latencies);
+        double seconds = duration.toNanos() / 1e9;
+        return new Result(requests / seconds, percentile(latencies, 0.50), percentile(latencies, 0.99),
+            bytes, requests, errors);
+    }
+    
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+    
+    /**
+     * 单个虚拟用户，只在自己的线程上写入数据
+     */
+    private static final class Worker {
+        
+        private long[] latencies = new long[1024];
+        
+        private int count;
+        
+        private long errors;
+        
+        private long bytes;
+        
+        Worker run(HttpClient client, HttpRequest request, long measureStart, long measureEnd) {
+            long now = System.nanoTime();
+            while (now < measureEnd) {
+                long start = now;
+                boolean ok;
+                int length = 0;
+                try {
+                    HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                    ok = response.statusCode() == 200;
+                    length = response.body().length;
+                } catch (Exception e) {
+                    ok = false;
+                }
+                now = System.nanoTime();
+                if (start < measureStart || now > measureEnd) {
+                    continue;
+                }
+                if (!ok) {
+                    errors++;
+                    continue;
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = now - start;
+                bytes = length;
+            }
+            return this;
+        }
+    }
+    
+    /**
+     * 压测结果
+     * @param throughput 每秒成功请求数
+     * @param p50 延迟中位数，毫秒
+     * @param p99 99分位延迟，毫秒
+     * @param bytes 响应体字节数
+     * @param requests 计入结果的成功请求数
+     * @param errors 失败请求数
+     */
+    record Result(double throughput, double p50, double p99, long bytes, long requests, long errors) {
+    }
+}
@@ -0,0 +1,169 @@
+package www.ppkok.com.jyfac;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import run.halo.app.extension.ReactiveExtensionClient;
+import run.halo.app.plugin.ReactiveSettingFetcher;
+import run.halo.app.theme.dialect.TemplateHeadProcessor;
+
+/**
+ * 端到端页面渲染压测
+ * 分别在未安装插件、插件停用、单行和多行公告下压测同一个页面替身，输出吞吐量、延迟和响应体积的对比报告
+ * 通过 ./gradlew jyfacLoadTest 运行，参数以 -Pjyfac.loadtest.* 传入
+ */
+public final class JyfacLoadTest {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    private JyfacLoadTest() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Path report = Path.of(args.length > 0 ? args[0] : "build/reports/jyfac-loadtest/report.md");
+        int concurrency = Integer.getInteger("jyfac.loadtest.concurrency", 32);
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("jyfac.loadtest.warmup", 10));
+        Duration duration = Duration.ofSeconds(Integer.getInteger("jyfac.loadtest.duration", 20));
+        int lines = Integer.getInteger("jyfac.loadtest.lines", 10);
+        String injectMode = System.getProperty("jyfac.loadtest.injectMode", "external");
+        
+        Map<String, JyfacSetting> cases = new LinkedHashMap<>();
+        cases.put("none", null);
+        cases.put("disabled", setting(Map.of("enabled", false, "injectMode", injectMode)));
+        cases.put("single", setting(Map.of("displayMode", "single", "injectMode", injectMode)));
+        cases.put("multi", setting(Map.of("displayMode", "multi", "injectMode", injectMode,
+            "multiLineTexts", multiLineTexts(lines))));
+        
+        JyfacLoadGenerator generator = new JyfacLoadGenerator(concurrency, warmup, duration);
+        Map<String, JyfacLoadGenerator.Result> results = new LinkedHashMap<>();
+        for (Map.Entry<String, JyfacSetting> entry : cases.entrySet()) {
+            try (JyfacStandInServer server = new JyfacStandInServer(headProcessors(entry.getValue()))) {
+                System.out.printf("压测 %s ...%n", entry.getKey());
+                results.put(entry.getKey(), generator.run(server.url()));
+            }
+        }
+        
+        String content = report(results, concurrency, warmup, duration, lines, injectMode);
+        Files.createDirectories(report.toAbsolutePath().getParent());
+        Files.writeString(report, content, StandardCharsets.UTF_8);
+        System.out.println(content);
+        System.out.println("报告已写入 " + report.toAbsolutePath());
+    }
+    
+    /**
+     * 与插件运行时一致地装配头部处理器，设置为null时不注册任何处理器
+     */
+    private static List<TemplateHeadProcessor> headProcessors(JyfacSetting setting) {
+        if (setting == null) {
+            return List.of();
+        }
+        JyfacMetrics metrics = new JyfacMetrics(new SimpleMeterRegistry());
+        JyfacService service = new JyfacService(settingFetcher(setting), metrics);
+        service.refresh().block();
+        JyfacBundleService bundleService = new JyfacBundleService(new JyfacBundleCompiler(), metrics,
+            service, new JyfacAnnouncementService(extensionClient(), event -> {
+            }));
+        JyfacTargetingService targetingService = new JyfacTargetingService();
+        targetingService.prewarm(setting);
+        bundleService.getBundles(setting);
+        List<TemplateHeadProcessor> processors = new ArrayList<>();
+        processors.add(new JyfacHeadProcessor(service, bundleService, targetingService, metrics));
+        return processors;
+    }
+    
+    private static String report(Map<String, JyfacLoadGenerator.Result> results, int concurrency,
+                                 Duration warmup, Duration duration, int lines, String injectMode) {
+        JyfacLoadGenerator.Result baseline = results.get("none");
+        StringBuilder out = new StringBuilder();
+        out.append("# Jyfac页面渲染压测报告\n\n")
+            .append("- 时间：").append(LocalDateTime.now().withNano(0)).append('\n')
+            .append("- JVM：").append(System.getProperty("java.vm.name")).append(' ')
+            .append(Runtime.version()).append('\n')
+            .append("- 处理器：").append(Runtime.getRuntime().availableProcessors()).append('\n')
+            .append("- 并发：").append(concurrency)
+            .append("，预热：").append(warmup.toSeconds()).append("s")
+            .append("，测量：").append(duration.toSeconds()).append("s\n")
+            .append("- 注入模式：").append(injectMode)
+            .append("，多行公告行数：").append(lines).append("\n\n")
+            .append("| 场景 | 请求/秒 | 相对未安装 | p50 (ms) | p99 (ms) | 响应体积 (B) | 体积增量 (B) | 失败 |\n")
+            .append("|---|---:|---:|---:|---:|---:|---:|---:|\n");
+        for (Map.Entry<String, JyfacLoadGenerator.Result> entry : results.entrySet()) {
+            JyfacLoadGenerator.Result result = entry.getValue();
+            out.append(String.format(Locale.ROOT, "| %s | %.0f | %+.1f%% | %.2f | %.2f | %d | %+d | %d |%n",
+                entry.getKey(),
+                result.throughput(),
+                (result.throughput() / baseline.throughput() - 1) * 100,
+                result.p50(),
+                result.p99(),
+                result.bytes(),
+                result.bytes() - baseline.bytes(),
+                result.errors()));
+        }
+        return out.toString();
+    }
+    
+    /**
+     * 在默认设置基础上覆盖部分配置项
+     */
+    @SuppressWarnings("unchecked")
+    private static JyfacSetting setting(Map<String, Object> overrides) {
+        Map<String, Object> values = MAPPER.convertValue(JyfacSetting.defaultSetting(), Map.class);
+        values.putAll(overrides);
+        return MAPPER.convertValue(values, JyfacSetting.class);
+    }
+    
+    private static String multiLineTexts(int lines) {
+        StringBuilder texts = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            if (i > 0) {
+                texts.append('\n');
+            }
+            texts.append("第").append(i + 1).append("条公告：系统将于今晚22:00-24:00进行维护升级，请提前保存数据");
+        }
+        return texts.toString();
+    }
+    
+    /**
+     * 每次调用fetch都返回给定配置的设置获取器
+     */
+    private static ReactiveSettingFetcher settingFetcher(JyfacSetting setting) {
+        return (ReactiveSettingFetcher) Proxy.newProxyInstance(
+            ReactiveSettingFetcher.class.getClassLoader(),
+            new Class<?>[] {ReactiveSettingFetcher.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "fetch" -> Mono.just(setting);
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> "StubSettingFetcher";
+                default -> Mono.empty();
+            });
+    }
+    
+    /**
+     * 没有定时公告的扩展客户端
+     */
+    private static ReactiveExtensionClient extensionClient() {
+        return (ReactiveExtensionClient) Proxy.newProxyInstance(
+            ReactiveExtensionClient.class.getClassLoader(),
+            new Class<?>[] {ReactiveExtensionClient.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "list" -> Flux.empty();
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> "StubExtensionClient";
+                default -> Mono.empty();
+            });
+    }
+}
@@ -0,0 +1,147 @@
+package www.ppkok.com.jyfac;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.dialect.AbstractProcessorDialect;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.processor.IProcessor;
+import org.thymeleaf.processor.element.AbstractElementModelProcessor;
+import org.thymeleaf.processor.element.IElementModelStructureHandler;
+import org.thymeleaf.spring6.web.webflux.ISpringWebFluxWebExchange;
+import org.thymeleaf.spring6.web.webflux.SpringWebFluxWebApplication;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import run.halo.app.theme.dialect.TemplateHeadProcessor;
+
+/**
+ * 压测用的主题页面替身
+ * 以WebFlux和Thymeleaf渲染一个典型文章列表页，渲染到head元素时与Halo一样依次执行已注册的头部处理器
+ */
+final class JyfacStandInServer implements AutoCloseable {
+    
+    static final String PAGE_PATH = "/";
+    
+    private final TemplateEngine templateEngine;
+    
+    private final SpringWebFluxWebApplication application;
+    
+    private final DisposableServer server;
+    
+    /**
+     * 启动页面替身
+     * @param headProcessors 已注册的头部处理器，为空时相当于未安装插件
+     */
+    JyfacStandInServer(List<TemplateHeadProcessor> headProcessors) {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(true);
+        this.templateEngine = new TemplateEngine();
+        this.templateEngine.setTemplateResolver(resolver);
+        this.templateEngine.addDialect(new HeadInjectionDialect(headProcessors));
+        this.application = SpringWebFluxWebApplication.buildApplication(null);
+        ReactorHttpHandlerAdapter adapter = new ReactorHttpHandlerAdapter(RouterFunctions.toHttpHandler(
+            RouterFunctions.route()
+                .GET(PAGE_PATH, request -> ServerResponse.ok()
+                    .contentType(MediaType.TEXT_HTML)
+                    // 头部处理器在渲染线程上阻塞等待，渲染不能放在事件循环线程上
+                    .body(Mono.fromCallable(() -> render(request.exchange()))
+                        .subscribeOn(Schedulers.boundedElastic()), String.class))
+                .build()));
+        this.server = HttpServer.create()
+            .host("127.0.0.1")
+            .port(0)
+            .handle(adapter)
+            .bindNow();
+    }
+    
+    /**
+     * 页面访问地址
+     */
+    String url() {
+        return "http://127.0.0.1:" + server.port() + PAGE_PATH;
+    }
+    
+    private String render(ServerWebExchange exchange) {
+        ISpringWebFluxWebExchange webExchange = application.buildExchange(exchange,
+            Locale.SIMPLIFIED_CHINESE, MediaType.TEXT_HTML, null);
+        WebContext context = new WebContext(webExchange, Locale.SIMPLIFIED_CHINESE);
+        context.setVariable("title", "Jyfac压测站点");
+        context.setVariable("posts", IntStream.rangeClosed(1, 20)
+            .mapToObj(i -> Map.of(
+                "title", "示例文章标题 " + i,
+                "permalink", "/archives/post-" + i,
+                "excerpt", "这是一段用于模拟主题列表页的文章摘要，长度与常见主题接近，用于让页面体积贴近真实站点。",
+                "tags", List.of("Halo", "插件", "性能")))
+            .toList());
+        return templateEngine.process("page", context);
+    }
+    
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+    
+    /**
+     * 只包含head注入处理器的方言
+     */
+    private static final class HeadInjectionDialect extends AbstractProcessorDialect {
+        
+        private final List<TemplateHeadProcessor> headProcessors;
+        
+        HeadInjectionDialect(List<TemplateHeadProcessor> headProcessors) {
+            super("jyfac-stand-in", null, 1000);
+            this.headProcessors = headProcessors;
+        }
+        
+        @Override
+        public Set<IProcessor> getProcessors(String dialectPrefix) {
+            return Set.of(new HeadInjectionProcessor(headProcessors));
+        }
+    }
+    
+    /**
+     * 与Halo的全局头部注入一致：依次执行头部处理器，把结果插入到head结束标签之前
+     */
+    private static final class HeadInjectionProcessor extends AbstractElementModelProcessor {
+        
+        private final List<TemplateHeadProcessor> headProcessors;
+        
+        HeadInjectionProcessor(List<TemplateHeadProcessor> headProcessors) {
+            super(TemplateMode.HTML, null, "head", false, null, false, 1000);
+            this.headProcessors = headProcessors;
+        }
+        
+        @Override
+        protected void doProcess(ITemplateContext context, IModel model,
+                                 IElementModelStructureHandler structureHandler) {
+            if (headProcessors.isEmpty()) {
+                return;
+            }
+            IModel injected = context.getModelFactory().createModel();
+            Flux.fromIterable(headProcessors)
+                .concatMap(processor -> processor.process(context, injected, structureHandler))
+                .then()
+                .block();
+            model.insertModel(model.size() - 1, injected);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package www.ppkok.com.jyfac;
+
+import static io.swagger.v3.oas.annotations.media.Schema.RequiredMode.REQUIRED;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.Instant;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import run.halo.app.extension.AbstractExtension;
+import run.halo.app.extension.GVK;
+
+/**
+ * Jyfac插件定时公告
+ * 每条公告有独立的生效时间窗口和优先级，生效期间替换设置中的公告内容
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@GVK(group = "jyfac.ppkok.com", version = "v1alpha1", kind = "Announcement",
+    plural = "announcements", singular = "announcement")
+public class Announcement extends AbstractExtension {
+    
+    @Schema(requiredMode = REQUIRED)
+    private Spec spec;
+    
+    @Data
+    public static class Spec {
+        
+        @Schema(requiredMode = REQUIRED, minLength = 1, description = "公告内容")
+        private String content;
+        
+        @Schema(description = "开始时间，为空表示立即生效")
+        private Instant startTime;
+        
+        @Schema(description = "结束时间，为空表示长期有效")
+        private Instant endTime;
+        
+        @Schema(description = "优先级，数值越大越靠前", defaultValue = "0")
+        private Integer priority;
+    }
+}
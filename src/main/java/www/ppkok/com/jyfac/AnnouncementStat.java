@@ -0,0 +1,46 @@
+package www.ppkok.com.jyfac;
+
+import static io.swagger.v3.oas.annotations.media.Schema.RequiredMode.REQUIRED;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.Instant;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import run.halo.app.extension.AbstractExtension;
+import run.halo.app.extension.GVK;
+
+/**
+ * Jyfac插件公告统计
+ * 每条公告每小时一条记录，由上报服务定期批量累加
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@GVK(group = "jyfac.ppkok.com", version = "v1alpha1", kind = "AnnouncementStat",
+    plural = "announcementstats", singular = "announcementstat")
+public class AnnouncementStat extends AbstractExtension {
+    
+    @Schema(requiredMode = REQUIRED)
+    private Spec spec;
+    
+    @Data
+    public static class Spec {
+        
+        @Schema(requiredMode = REQUIRED, description = "公告版本标识，与关闭记录使用同一个内容哈希")
+        private String key;
+        
+        @Schema(requiredMode = REQUIRED, description = "统计小时的开始时间")
+        private Instant hour;
+        
+        @Schema(description = "展示次数", defaultValue = "0")
+        private long impressions;
+        
+        @Schema(description = "点击次数", defaultValue = "0")
+        private long clicks;
+        
+        @Schema(description = "关闭次数", defaultValue = "0")
+        private long dismissals;
+    }
+}
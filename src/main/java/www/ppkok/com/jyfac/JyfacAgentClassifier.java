@@ -0,0 +1,161 @@
+package www.ppkok.com.jyfac;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Jyfac插件User-Agent分类器
+ * 把设置中的爬虫、链接预览和探测工具标识一次性编译为Aho-Corasick自动机，
+ * 每次请求只需对User-Agent做一遍不区分大小写的扫描，耗时与规则数量无关
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+final class JyfacAgentClassifier {
+    
+    static final JyfacAgentClassifier NONE =
+        new JyfacAgentClassifier(new int[0], new boolean[0], new int[0], 1);
+    
+    /**
+     * 状态转移表，按状态和字符编号展开，最后一列用于标识中未出现的字符
+     */
+    private final int[] transitions;
+    
+    private final boolean[] accepting;
+    
+    /**
+     * ASCII字符到字符编号的映射，未出现在标识中的字符映射到最后一列
+     */
+    private final int[] symbols;
+    
+    private final int width;
+    
+    private JyfacAgentClassifier(int[] transitions, boolean[] accepting, int[] symbols, int width) {
+        this.transitions = transitions;
+        this.accepting = accepting;
+        this.symbols = symbols;
+        this.width = width;
+    }
+    
+    /**
+     * 编译标识规则
+     * @param tokens 每行一条标识，不区分大小写，只支持ASCII字符
+     * @return 分类器，没有有效规则时为 {@link #NONE}
+     */
+    static JyfacAgentClassifier compile(String tokens) {
+        Set<String> patterns = new LinkedHashSet<>();
+        if (tokens != null) {
+            for (String line : tokens.split("\\n")) {
+                String token = line.trim().toLowerCase(Locale.ROOT);
+                if (!token.isEmpty() && token.chars().allMatch(c -> c < 128)) {
+                    patterns.add(token);
+                }
+            }
+        }
+        if (patterns.isEmpty()) {
+            return NONE;
+        }
+        
+        int[] symbols = new int[128];
+        Arrays.fill(symbols, -1);
+        int alphabet = 0;
+        for (String pattern : patterns) {
+            for (char c : pattern.toCharArray()) {
+                if (symbols[c] < 0) {
+                    symbols[c] = alphabet++;
+                }
+            }
+        }
+        int width = alphabet + 1;
+        for (int c = 0; c < 128; c++) {
+            if (symbols[c] < 0) {
+                symbols[c] = alphabet;
+            }
+        }
+        
+        // 构建字典树
+        List<int[]> trie = new ArrayList<>();
+        List<Boolean> output = new ArrayList<>();
+        trie.add(newState(width));
+        output.add(false);
+        for (String pattern : patterns) {
+            int state = 0;
+            for (char c : pattern.toCharArray()) {
+                int symbol = symbols[c];
+                if (trie.get(state)[symbol] < 0) {
+                    trie.get(state)[symbol] = trie.size();
+                    trie.add(newState(width));
+                    output.add(false);
+                }
+                state = trie.get(state)[symbol];
+            }
+            output.set(state, true);
+        }
+        
+        // 按层补全失败转移，得到完整的确定性自动机
+        int count = trie.size();
+        int[] transitions = new int[count * width];
+        boolean[] accepting = new boolean[count];
+        int[] fail = new int[count];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < width; symbol++) {
+            int next = trie.get(0)[symbol];
+            transitions[symbol] = next < 0 ? 0 : next;
+            if (next > 0) {
+                queue.add(next);
+            }
+        }
+        accepting[0] = output.get(0);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            accepting[state] = output.get(state) || accepting[fail[state]];
+            for (int symbol = 0; symbol < width; symbol++) {
+                int next = trie.get(state)[symbol];
+                if (next < 0) {
+                    transitions[state * width + symbol] = transitions[fail[state] * width + symbol];
+                } else {
+                    fail[next] = transitions[fail[state] * width + symbol];
+                    transitions[state * width + symbol] = next;
+                    queue.add(next);
+                }
+            }
+        }
+        return new JyfacAgentClassifier(transitions, accepting, symbols, width);
+    }
+    
+    /**
+     * 判断User-Agent是否包含任意一条标识
+     * @param userAgent User-Agent请求头
+     * @return 是否匹配
+     */
+    boolean matches(String userAgent) {
+        if (this == NONE || userAgent == null) {
+            return false;
+        }
+        int other = width - 1;
+        int state = 0;
+        for (int i = 0, length = userAgent.length(); i < length; i++) {
+            char c = userAgent.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            state = transitions[state * width + (c < 128 ? symbols[c] : other)];
+            if (accepting[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static int[] newState(int width) {
+        int[] state = new int[width];
+        Arrays.fill(state, -1);
+        return state;
+    }
+}
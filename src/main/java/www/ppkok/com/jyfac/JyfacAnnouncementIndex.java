@@ -0,0 +1,123 @@
+package www.ppkok.com.jyfac;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Jyfac插件公告时间索引
+ * 按所有时间窗口的边界排序，预先计算每个区间内生效的公告，查询时二分查找即可，复杂度为O(log n)
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+final class JyfacAnnouncementIndex {
+    
+    static final JyfacAnnouncementIndex EMPTY = new JyfacAnnouncementIndex(new long[0], List.of(List.of()));
+    
+    /**
+     * 升序且不重复的窗口边界（毫秒时间戳）
+     */
+    private final long[] boundaries;
+    
+    /**
+     * 第k个区间为 [boundaries[k-1], boundaries[k])，其中生效的公告按优先级排序
+     */
+    private final List<List<String>> segments;
+    
+    private JyfacAnnouncementIndex(long[] boundaries, List<List<String>> segments) {
+        this.boundaries = boundaries;
+        this.segments = segments;
+    }
+    
+    /**
+     * 构建索引
+     * @param windows 公告时间窗口
+     * @return 时间索引
+     */
+    static JyfacAnnouncementIndex build(List<Window> windows) {
+        List<Window> valid = windows.stream()
+            .filter(window -> window.content() != null && !window.content().isBlank())
+            .filter(window -> window.start() < window.end())
+            .sorted(Comparator.comparingInt(Window::priority).reversed()
+                .thenComparingLong(Window::start))
+            .toList();
+        if (valid.isEmpty()) {
+            return EMPTY;
+        }
+        long[] boundaries = valid.stream()
+            .flatMapToLong(window -> Arrays.stream(new long[] {window.start(), window.end()}))
+            .filter(time -> time != Long.MIN_VALUE && time != Long.MAX_VALUE)
+            .sorted()
+            .distinct()
+            .toArray();
+        List<List<String>> segments = new ArrayList<>(boundaries.length + 1);
+        for (int k = 0; k <= boundaries.length; k++) {
+            long point = k == 0 ? Long.MIN_VALUE : boundaries[k - 1];
+            List<String> active = new ArrayList<>();
+            for (Window window : valid) {
+                if (window.start() <= point && point < window.end()) {
+                    active.add(window.content().trim());
+                }
+            }
+            segments.add(List.copyOf(active));
+        }
+        return new JyfacAnnouncementIndex(boundaries, segments);
+    }
+    
+    /**
+     * 查询指定时间生效的公告
+     * @param epochMilli 毫秒时间戳
+     * @return 按优先级排序的公告内容
+     */
+    List<String> activeAt(long epochMilli) {
+        return segments.get(segmentOf(epochMilli));
+    }
+    
+    /**
+     * 查询指定时间之后的下一个窗口边界
+     * @param epochMilli 毫秒时间戳
+     * @return 下一个边界，不存在时为 {@link Long#MAX_VALUE}
+     */
+    long nextBoundaryAfter(long epochMilli) {
+        int segment = segmentOf(epochMilli);
+        return segment < boundaries.length ? boundaries[segment] : Long.MAX_VALUE;
+    }
+    
+    /**
+     * 计算不大于给定时间的边界数量，即所在区间的序号
+     */
+    private int segmentOf(long epochMilli) {
+        int low = 0;
+        int high = boundaries.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (boundaries[middle] <= epochMilli) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * 公告时间窗口
+     * @param start 开始时间（毫秒），不限时为 {@link Long#MIN_VALUE}
+     * @param end 结束时间（毫秒），不限时为 {@link Long#MAX_VALUE}
+     * @param priority 优先级
+     * @param content 公告内容
+     */
+    record Window(long start, long end, int priority, String content) {
+        
+        static Window of(Instant start, Instant end, Integer priority, String content) {
+            return new Window(
+                start == null ? Long.MIN_VALUE : start.toEpochMilli(),
+                end == null ? Long.MAX_VALUE : end.toEpochMilli(),
+                priority == null ? 0 : priority,
+                content);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package www.ppkok.com.jyfac;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import run.halo.app.extension.controller.Controller;
+import run.halo.app.extension.controller.ControllerBuilder;
+import run.halo.app.extension.controller.Reconciler;
+
+/**
+ * Jyfac插件定时公告协调器
+ * 公告创建、更新或删除时通知公告服务重建时间索引
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+@Component
+@RequiredArgsConstructor
+public class JyfacAnnouncementReconciler implements Reconciler<Reconciler.Request> {
+    
+    private final JyfacAnnouncementService announcementService;
+    
+    @Override
+    public Result reconcile(Request request) {
+        announcementService.requestReload();
+        return new Result(false, null);
+    }
+    
+    @Override
+    public Controller setupWith(ControllerBuilder builder) {
+        return builder
+            .extension(new Announcement())
+            .build();
+    }
+}
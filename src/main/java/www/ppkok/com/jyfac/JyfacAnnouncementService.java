@@ -0,0 +1,143 @@
+package www.ppkok.com.jyfac;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import run.halo.app.extension.ReactiveExtensionClient;
+
+/**
+ * Jyfac插件定时公告服务
+ * 公告变更时重建时间索引，并在下一个窗口边界准时切换生效公告，页面渲染时无需逐条判断时间
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+@Slf4j
+@Component
+public class JyfacAnnouncementService {
+    
+    /**
+     * 合并短时间内的多次重载请求，避免启动时每条公告各触发一次重建
+     */
+    private static final Duration RELOAD_DEBOUNCE = Duration.ofMillis(200);
+    
+    private final ReactiveExtensionClient client;
+    
+    private final ApplicationEventPublisher eventPublisher;
+    
+    private final Sinks.Many<Boolean> reloadRequests = Sinks.many().unicast().onBackpressureBuffer();
+    
+    private final Disposable reloadSubscription;
+    
+    /**
+     * 下一个窗口边界的切换任务
+     */
+    private final AtomicReference<Disposable> boundaryTask = new AtomicReference<>();
+    
+    private volatile JyfacAnnouncementIndex index = JyfacAnnouncementIndex.EMPTY;
+    
+    /**
+     * 当前生效的公告内容，变化时整体替换
+     */
+    private volatile List<String> active = List.of();
+    
+    private volatile boolean disposed;
+    
+    public JyfacAnnouncementService(ReactiveExtensionClient client,
+                                    ApplicationEventPublisher eventPublisher) {
+        this.client = client;
+        this.eventPublisher = eventPublisher;
+        this.reloadSubscription = reloadRequests.asFlux()
+            .sampleTimeout(request -> Mono.delay(RELOAD_DEBOUNCE))
+            .concatMap(request -> reload()
+                .onErrorResume(e -> {
+                    log.warn("重建公告时间索引失败", e);
+                    return Mono.empty();
+                }))
+            .subscribe();
+    }
+    
+    /**
+     * 获取当前生效的公告
+     * @return 按优先级排序的公告内容，没有生效公告时为空列表
+     */
+    public List<String> activeContents() {
+        return active;
+    }
+    
+    /**
+     * 请求重新加载公告，短时间内的多次请求会被合并
+     */
+    public void requestReload() {
+        if (disposed) {
+            return;
+        }
+        reloadRequests.emitNext(true, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+    }
+    
+    /**
+     * 重新读取全部公告并重建时间索引
+     * @return 完成信号
+     */
+    public Mono<Void> reload() {
+        return client.list(Announcement.class, null, null)
+            .filter(announcement -> announcement.getSpec() != null
+                && announcement.getMetadata().getDeletionTimestamp() == null)
+            .map(announcement -> {
+                Announcement.Spec spec = announcement.getSpec();
+                return JyfacAnnouncementIndex.Window.of(spec.getStartTime(), spec.getEndTime(),
+                    spec.getPriority(), spec.getContent());
+            })
+            .collectList()
+            .doOnNext(windows -> {
+                index = JyfacAnnouncementIndex.build(windows);
+                refreshActive();
+            })
+            .then();
+    }
+    
+    /**
+     * 停止重载订阅和边界切换任务，插件停止时调用
+     */
+    public synchronized void dispose() {
+        disposed = true;
+        reloadSubscription.dispose();
+        reloadRequests.tryEmitComplete();
+        Disposable task = boundaryTask.getAndSet(null);
+        if (task != null) {
+            task.dispose();
+        }
+        index = JyfacAnnouncementIndex.EMPTY;
+        active = List.of();
+    }
+    
+    /**
+     * 按当前时间切换生效公告，并安排下一个边界的切换任务
+     */
+    private synchronized void refreshActive() {
+        if (disposed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        JyfacAnnouncementIndex current = index;
+        List<String> next = current.activeAt(now);
+        if (!next.equals(active)) {
+            active = next;
+            eventPublisher.publishEvent(new JyfacAnnouncementsChangedEvent(this));
+        }
+        long boundary = current.nextBoundaryAfter(now);
+        Disposable task = boundary == Long.MAX_VALUE ? null
+            : Mono.delay(Duration.ofMillis(Math.max(0, boundary - now)))
+                .subscribe(tick -> refreshActive());
+        Disposable previous = boundaryTask.getAndSet(task);
+        if (previous != null) {
+            previous.dispose();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package www.ppkok.com.jyfac;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Jyfac插件生效公告变更事件
+ * 公告资源变化或到达时间窗口边界导致生效公告变化时发布
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+public class JyfacAnnouncementsChangedEvent extends ApplicationEvent {
+    
+    public JyfacAnnouncementsChangedEvent(Object source) {
+        super(source);
+    }
+}
@@ -0,0 +1,102 @@
+package www.ppkok.com.jyfac;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Jyfac插件资源压缩工具
+ * gzip使用JDK自带实现；brotli在类路径中存在brotli4j时启用，否则回退到gzip或原始内容
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+@Slf4j
+final class JyfacAssetEncoder {
+    
+    private static final MethodHandle BROTLI_COMPRESS = lookupBrotli();
+    
+    private JyfacAssetEncoder() {
+    }
+    
+    /**
+     * 生成资源的全部编码
+     * @param contentType 资源类型
+     * @param content 资源内容
+     * @return 预压缩资源
+     */
+    static JyfacEncodedAsset encode(String contentType, String content) {
+        byte[] identity = content.getBytes(StandardCharsets.UTF_8);
+        byte[] gzip = gzip(identity);
+        if (gzip.length >= identity.length) {
+            gzip = null;
+        }
+        byte[] brotli = brotli(identity);
+        byte[] smallest = gzip != null ? gzip : identity;
+        if (brotli != null && brotli.length >= smallest.length) {
+            brotli = null;
+        }
+        return new JyfacEncodedAsset(contentType, identity, gzip, brotli);
+    }
+    
+    /**
+     * 判断brotli编码器是否可用
+     * @return 是否可用
+     */
+    static boolean isBrotliAvailable() {
+        return BROTLI_COMPRESS != null;
+    }
+    
+    private static byte[] gzip(byte[] input) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 2 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+    
+    private static byte[] brotli(byte[] input) {
+        if (BROTLI_COMPRESS == null) {
+            return null;
+        }
+        try {
+            return (byte[]) BROTLI_COMPRESS.invokeExact(input);
+        } catch (Throwable e) {
+            log.warn("Brotli压缩失败，回退到gzip", e);
+            return null;
+        }
+    }
+    
+    /**
+     * 查找brotli4j编码器
+     * 插件不直接依赖brotli4j，仅在宿主提供时使用
+     */
+    private static MethodHandle lookupBrotli() {
+        try {
+            ClassLoader classLoader = JyfacAssetEncoder.class.getClassLoader();
+            Class<?> loader = Class.forName("com.aayushatharva.brotli4j.Brotli4jLoader", true, classLoader);
+            if (!(Boolean) loader.getMethod("isAvailable").invoke(null)) {
+                return null;
+            }
+            Class<?> encoder = Class.forName("com.aayushatharva.brotli4j.encoder.Encoder", true, classLoader);
+            return MethodHandles.publicLookup()
+                .findStatic(encoder, "compress", MethodType.methodType(byte[].class, byte[].class));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.debug("未找到可用的Brotli编码器，仅提供gzip压缩");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package www.ppkok.com.jyfac;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * Jyfac插件静态资源路由
+ * 以带内容哈希的地址提供渲染包中的样式、脚本、HTML片段和SVG图标，配置不变时可被浏览器和CDN长期缓存
+ * 资源在编译时已预压缩，按Accept-Encoding直接返回对应编码，无需再次压缩
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+@Configuration
+@RequiredArgsConstructor
+public class JyfacAssetRouter {
+    
+    private static final Pattern ASSET_NAME =
+        Pattern.compile("capsule\\.([0-9a-f]{16})\\.(base\\.css|css|js|runtime\\.js|html|svg)");
+    
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    
+    private final JyfacService jyfacService;
+    
+    private final JyfacBundleService bundleService;
+    
+    @Bean
+    RouterFunction<ServerResponse> jyfacAssetRouterFunction() {
+        return RouterFunctions.route()
+            .GET(JyfacRenderBundle.ASSET_PATH + "{name}", this::handleAsset)
+            .build();
+    }
+    
+    private Mono<ServerResponse> handleAsset(ServerRequest request) {
+        Matcher matcher = ASSET_NAME.matcher(request.pathVariable("name"));
+        if (!matcher.matches()) {
+            return ServerResponse.notFound().build();
+        }
+        String hash = matcher.group(1);
+        String extension = matcher.group(2);
+        // 静态样式与配置无关，不需要查找渲染包
+        if ("base.css".equals(extension)) {
+            return JyfacStyleCompiler.BASE_HASH.equals(hash)
+                ? render(request, hash, JyfacStyleCompiler.BASE_ASSET, extension)
+                : ServerResponse.notFound().build();
+        }
+        return Mono.justOrEmpty(bundleService.findByHash(hash))
+            // 其他节点或重启后尚未编译时，按当前配置编译后再查找
+            .switchIfEmpty(Mono.defer(() -> jyfacService.getSetting()
+                .flatMapIterable(bundleService::getBundles)
+                .filter(bundle -> bundle.hash().equals(hash) || bundle.iconHash().equals(hash))
+                .next()))
+            .filter(bundle -> bundle.assets().containsKey(extension))
+            .flatMap(bundle -> render(request, hash, bundle.assets().get(extension), extension))
+            .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound()
+                .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                .build()));
+    }
+    
+    private Mono<ServerResponse> render(ServerRequest request, String hash,
+                                        JyfacEncodedAsset asset, String extension) {
+        String encoding = negotiateEncoding(request, asset);
+        // 不同编码的内容不同，强ETag需要区分编码
+        String etag = "\"" + hash + "-" + extension
+            + ("identity".equals(encoding) ? "" : "-" + encoding) + "\"";
+        if (isNotModified(request, etag)) {
+            return ServerResponse.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .build();
+        }
+        byte[] body = asset.variant(encoding);
+        ServerResponse.BodyBuilder builder = ServerResponse.ok()
+            .header(HttpHeaders.CONTENT_TYPE, asset.contentType())
+            .eTag(etag)
+            .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .contentLength(body.length);
+        if (!"identity".equals(encoding)) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, encoding);
+        }
+        return builder.bodyValue(body);
+    }
+    
+    /**
+     * 根据Accept-Encoding选择可用的最佳编码
+     * 优先brotli，其次gzip，客户端不支持或未生成时返回identity
+     * @param request 请求
+     * @param asset 预压缩资源
+     * @return br、gzip或identity
+     */
+    private String negotiateEncoding(ServerRequest request, JyfacEncodedAsset asset) {
+        boolean acceptBrotli = false;
+        boolean acceptGzip = false;
+        for (String header : request.headers().header(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String candidate : header.split(",")) {
+                String[] parts = candidate.trim().split(";");
+                String coding = parts[0].trim();
+                if (parts.length > 1 && isZeroQuality(parts[1])) {
+                    continue;
+                }
+                if ("br".equalsIgnoreCase(coding)) {
+                    acceptBrotli = true;
+                } else if ("gzip".equalsIgnoreCase(coding) || "*".equals(coding)) {
+                    acceptGzip = true;
+                }
+            }
+        }
+        if (acceptBrotli && asset.brotli() != null) {
+            return "br";
+        }
+        if (acceptGzip && asset.gzip() != null) {
+            return "gzip";
+        }
+        return "identity";
+    }
+    
+    private boolean isZeroQuality(String parameter) {
+        String value = parameter.trim();
+        if (!value.startsWith("q=")) {
+            return false;
+        }
+        try {
+            return Double.parseDouble(value.substring(2)) <= 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * 判断条件请求的ETag是否与当前资源一致
+     * @param request 请求
+     * @param etag 当前资源的强ETag
+     * @return 是否可以返回304
+     */
+    private boolean isNotModified(ServerRequest request, String etag) {
+        for (String header : request.headers().header(HttpHeaders.IF_NONE_MATCH)) {
+            for (String candidate : header.split(",")) {
+                String value = candidate.trim();
+                if (value.startsWith("W/")) {
+                    value = value.substring(2);
+                }
+                if (value.equals(etag) || value.equals("*")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,175 @@
+package www.ppkok.com.jyfac;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import run.halo.app.core.extension.endpoint.CustomEndpoint;
+import run.halo.app.extension.GroupVersion;
+
+/**
+ * Jyfac插件统计上报接口
+ * 接收浏览器通过sendBeacon批量上报的展示、点击和关闭次数，匿名访问权限由角色模板授予
+ * 请求体每行一条记录：公告版本标识,展示次数,点击次数,关闭次数
+ * 公告版本标识为16位十六进制数，只接收当前渲染包中的标识
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+@Component
+@RequiredArgsConstructor
+public class JyfacBeaconEndpoint implements CustomEndpoint {
+    
+    /**
+     * 上报地址，生成的脚本使用同一路径
+     */
+    public static final String BEACON_PATH = "/apis/api.jyfac.ppkok.com/v1alpha1/beacons";
+    
+    private static final int MAX_BODY_BYTES = 1024;
+    
+    private static final int MAX_LINES = 16;
+    
+    /**
+     * 公告版本标识的长度，即渲染包关闭记录标识的长度
+     */
+    private static final int KEY_LENGTH = 16;
+    
+    /**
+     * 单条记录每项计数的上限，超出的记录视为无效
+     */
+    private static final long MAX_COUNT = 100;
+    
+    /**
+     * 一次上报的计数总和上限，超出后的记录全部丢弃
+     * 页面隐藏时即上报，正常浏览一次上报只有少量展示和点击
+     */
+    private static final long MAX_EVENTS = 100;
+    
+    private final JyfacBeaconService beaconService;
+    
+    @Override
+    public RouterFunction<ServerResponse> endpoint() {
+        return RouterFunctions.route()
+            .POST("/beacons", this::ingest)
+            .build();
+    }
+    
+    @Override
+    public GroupVersion groupVersion() {
+        return new GroupVersion("api.jyfac.ppkok.com", "v1alpha1");
+    }
+    
+    private Mono<ServerResponse> ingest(ServerRequest request) {
+        if (!beaconService.isEnabled()) {
+            return ServerResponse.noContent().build();
+        }
+        // 直接在缓冲区上解析，不复制请求体也不创建字符串
+        return DataBufferUtils.join(request.body(BodyExtractors.toDataBuffers()), MAX_BODY_BYTES)
+            .doOnNext(buffer -> {
+                try {
+                    new BeaconReader(buffer).readTo(beaconService);
+                } finally {
+                    DataBufferUtils.release(buffer);
+                }
+            })
+            .onErrorResume(DataBufferLimitException.class, e -> Mono.empty())
+            .then(ServerResponse.noContent().build());
+    }
+    
+    /**
+     * 按字节读取上报记录，格式不符的记录整行跳过
+     */
+    private static final class BeaconReader {
+        
+        private final DataBuffer buffer;
+        
+        private final int end;
+        
+        private int position;
+        
+        private int lineEnd;
+        
+        private boolean valid;
+        
+        private long events;
+        
+        BeaconReader(DataBuffer buffer) {
+            this.buffer = buffer;
+            this.position = buffer.readPosition();
+            this.end = buffer.writePosition();
+        }
+        
+        void readTo(JyfacBeaconService beaconService) {
+            for (int line = 0; line < MAX_LINES && position < end; line++) {
+                lineEnd = position;
+                while (lineEnd < end && buffer.getByte(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                valid = true;
+                long key = key();
+                long impressions = count();
+                long clicks = count();
+                long dismissals = count();
+                if (valid && position == lineEnd) {
+                    events += impressions + clicks + dismissals;
+                    if (events > MAX_EVENTS) {
+                        return;
+                    }
+                    beaconService.record(key, impressions, clicks, dismissals);
+                }
+                position = lineEnd + 1;
+            }
+        }
+        
+        /**
+         * 读取16位十六进制的公告版本标识，标识后必须紧跟逗号，更长的标识由计数读取判为无效
+         */
+        private long key() {
+            if (lineEnd - position < KEY_LENGTH) {
+                valid = false;
+                return 0;
+            }
+            long value = 0;
+            for (int i = 0; i < KEY_LENGTH; i++) {
+                int digit = Character.digit(buffer.getByte(position++), 16);
+                if (digit < 0) {
+                    valid = false;
+                    return 0;
+                }
+                value = value << 4 | digit;
+            }
+            return value;
+        }
+        
+        /**
+         * 读取逗号后的计数
+         */
+        private long count() {
+            if (!valid || position >= lineEnd || buffer.getByte(position) != ',') {
+                valid = false;
+                return 0;
+            }
+            int start = ++position;
+            long value = 0;
+            while (position < lineEnd && value <= MAX_COUNT) {
+                byte digit = buffer.getByte(position);
+                if (digit < '0' || digit > '9') {
+                    break;
+                }
+                value = value * 10 + (digit - '0');
+                position++;
+            }
+            if (position == start || value > MAX_COUNT) {
+                valid = false;
+            }
+            return value;
+        }
+    }
+}
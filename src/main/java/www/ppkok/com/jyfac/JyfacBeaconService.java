@@ -0,0 +1,224 @@
+package www.ppkok.com.jyfac;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import run.halo.app.extension.Metadata;
+import run.halo.app.extension.ReactiveExtensionClient;
+
+/**
+ * Jyfac插件公告统计服务
+ * 上报只累加内存中的分段计数器，由一个定时任务批量写入公告统计资源，突发流量下上报之间不会争用同一个锁或同一条记录
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+@Slf4j
+@Component
+public class JyfacBeaconService {
+    
+    /**
+     * 计数写入统计资源的间隔
+     */
+    static final Duration FLUSH_INTERVAL = Duration.ofMinutes(1);
+    
+    /**
+     * 插件停止时最后一次写入的等待上限
+     */
+    private static final Duration FLUSH_TIMEOUT = Duration.ofSeconds(10);
+    
+    /**
+     * 内存中最多保留的公告小时数，防止伪造的公告标识占用内存
+     */
+    private static final int MAX_BUCKETS = 1024;
+    
+    private static final long HOUR_MILLIS = Duration.ofHours(1).toMillis();
+    
+    private static final DateTimeFormatter HOUR_NAME =
+        DateTimeFormatter.ofPattern("yyyyMMddHH").withZone(ZoneOffset.UTC);
+    
+    private final ReactiveExtensionClient client;
+    
+    private final JyfacService jyfacService;
+    
+    private final JyfacBundleService bundleService;
+    
+    private final ConcurrentHashMap<Bucket, Counters> counters = new ConcurrentHashMap<>();
+    
+    private final Disposable flushTask;
+    
+    public JyfacBeaconService(ReactiveExtensionClient client, JyfacService jyfacService,
+                              JyfacBundleService bundleService) {
+        this.client = client;
+        this.jyfacService = jyfacService;
+        this.bundleService = bundleService;
+        this.flushTask = Flux.interval(FLUSH_INTERVAL)
+            .onBackpressureDrop()
+            .concatMap(tick -> flush())
+            .subscribe();
+    }
+    
+    /**
+     * 是否接收上报，未开启展示统计时丢弃所有上报
+     */
+    public boolean isEnabled() {
+        JyfacSetting setting = jyfacService.peekSetting();
+        return setting != null && Boolean.TRUE.equals(setting.enabled()) && setting.analytics();
+    }
+    
+    /**
+     * 累加一条上报
+     * 只接收已编译渲染包的公告版本，伪造的标识不会创建统计记录，也不会占用内存中的分段
+     * @param key 公告版本标识
+     * @param impressions 展示次数
+     * @param clicks 点击次数
+     * @param dismissals 关闭次数
+     */
+    public void record(long key, long impressions, long clicks, long dismissals) {
+        if (!bundleService.isKnownDismissKey(HexFormat.of().toHexDigits(key))) {
+            return;
+        }
+        Bucket bucket = new Bucket(key, System.currentTimeMillis() / HOUR_MILLIS);
+        Counters bucketCounters = counters.get(bucket);
+        if (bucketCounters == null) {
+            if (counters.size() >= MAX_BUCKETS) {
+                return;
+            }
+            bucketCounters = counters.computeIfAbsent(bucket, ignored -> new Counters());
+        }
+        bucketCounters.add(impressions, clicks, dismissals);
+    }
+    
+    /**
+     * 把累计的计数写入统计资源
+     * 只减去已读取的计数而不清零，读取期间到达的上报留到下次写入
+     * 写入失败的计数放回内存，下次继续写入
+     * @return 完成信号
+     */
+    public Mono<Void> flush() {
+        long currentHour = System.currentTimeMillis() / HOUR_MILLIS;
+        return Flux.fromIterable(List.copyOf(counters.keySet()))
+            .concatMap(bucket -> {
+                // 上报只写入当前小时，早于上一小时的分段不会再有写入，取出后即可移除
+                Counters bucketCounters = bucket.hour() < currentHour - 1
+                    ? counters.remove(bucket) : counters.get(bucket);
+                if (bucketCounters == null) {
+                    return Mono.empty();
+                }
+                long impressions = bucketCounters.impressions.sum();
+                long clicks = bucketCounters.clicks.sum();
+                long dismissals = bucketCounters.dismissals.sum();
+                bucketCounters.subtract(impressions, clicks, dismissals);
+                if (impressions == 0 && clicks == 0 && dismissals == 0) {
+                    return Mono.empty();
+                }
+                return save(bucket, impressions, clicks, dismissals)
+                    .onErrorResume(e -> {
+                        log.warn("写入公告统计失败: {}", bucket.name(), e);
+                        counters.computeIfAbsent(bucket, ignored -> new Counters())
+                            .add(impressions, clicks, dismissals);
+                        return Mono.empty();
+                    });
+            })
+            .then();
+    }
+    
+    private Mono<AnnouncementStat> save(Bucket bucket, long impressions, long clicks, long dismissals) {
+        return Mono.defer(() -> client.fetch(AnnouncementStat.class, bucket.name())
+                .flatMap(stat -> {
+                    AnnouncementStat.Spec spec = stat.getSpec();
+                    spec.setImpressions(spec.getImpressions() + impressions);
+                    spec.setClicks(spec.getClicks() + clicks);
+                    spec.setDismissals(spec.getDismissals() + dismissals);
+                    return client.update(stat);
+                })
+                .switchIfEmpty(Mono.defer(() -> client.create(newStat(bucket, impressions, clicks,
+                    dismissals)))))
+            .retryWhen(Retry.backoff(3, Duration.ofMillis(100))
+                .filter(OptimisticLockingFailureException.class::isInstance));
+    }
+    
+    private static AnnouncementStat newStat(Bucket bucket, long impressions, long clicks, long dismissals) {
+        AnnouncementStat stat = new AnnouncementStat();
+        Metadata metadata = new Metadata();
+        metadata.setName(bucket.name());
+        stat.setMetadata(metadata);
+        AnnouncementStat.Spec spec = new AnnouncementStat.Spec();
+        spec.setKey(bucket.keyHex());
+        spec.setHour(Instant.ofEpochMilli(bucket.hour() * HOUR_MILLIS));
+        spec.setImpressions(impressions);
+        spec.setClicks(clicks);
+        spec.setDismissals(dismissals);
+        stat.setSpec(spec);
+        return stat;
+    }
+    
+    /**
+     * 停止定时写入并写入未保存的计数，插件停止时调用
+     */
+    public void dispose() {
+        flushTask.dispose();
+        try {
+            flush().block(FLUSH_TIMEOUT);
+        } catch (RuntimeException e) {
+            log.warn("插件停止时写入公告统计失败", e);
+        }
+        counters.clear();
+    }
+    
+    /**
+     * 公告版本和统计小时
+     */
+    private record Bucket(long key, long hour) {
+        
+        String keyHex() {
+            return HexFormat.of().toHexDigits(key);
+        }
+        
+        String name() {
+            return keyHex() + "-" + HOUR_NAME.format(Instant.ofEpochMilli(hour * HOUR_MILLIS));
+        }
+    }
+    
+    /**
+     * 一个公告小时的分段计数器
+     */
+    private static final class Counters {
+        
+        private final LongAdder impressions = new LongAdder();
+        
+        private final LongAdder clicks = new LongAdder();
+        
+        private final LongAdder dismissals = new LongAdder();
+        
+        void add(long impressions, long clicks, long dismissals) {
+            if (impressions > 0) {
+                this.impressions.add(impressions);
+            }
+            if (clicks > 0) {
+                this.clicks.add(clicks);
+            }
+            if (dismissals > 0) {
+                this.dismissals.add(dismissals);
+            }
+        }
+        
+        void subtract(long impressions, long clicks, long dismissals) {
+            this.impressions.add(-impressions);
+            this.clicks.add(-clicks);
+            this.dismissals.add(-dismissals);
+        }
+    }
+}
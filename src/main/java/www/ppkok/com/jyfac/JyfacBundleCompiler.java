@@ -0,0 +1,591 @@
+package www.ppkok.com.jyfac;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Jyfac插件渲染包编译器
+ * 根据插件设置一次性生成CSS、JS和HTML内容
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+@Slf4j
+@Component
+public class JyfacBundleCompiler {
+    
+    /**
+     * 记录本次会话中已自动隐藏的公告版本的存储键
+     */
+    static final String AUTO_HIDDEN_KEY = "jyfac_hidden";
+    
+    /**
+     * 引导脚本连同script标签的字节数上限
+     */
+    static final int BOOTSTRAP_BUDGET = 600;
+    
+    /**
+     * 公告内容渲染缓存的容量上限
+     */
+    private static final int MAX_RENDERED_TEXTS = 256;
+    
+    /**
+     * 预压缩资源缓存的容量上限
+     */
+    private static final int MAX_ENCODED_ASSETS = 128;
+    
+    /**
+     * 按内容哈希缓存的公告内容渲染结果
+     */
+    private final Map<String, String> renderedTexts = new ConcurrentHashMap<>();
+    
+    /**
+     * 按资源类型和内容哈希缓存的预压缩资源
+     * 各语言共用的样式和图标、配置变更中未变化的资源只压缩一次
+     */
+    private final Map<String, JyfacEncodedAsset> encodedAssets = new ConcurrentHashMap<>();
+    
+    /**
+     * 编译渲染包
+     * 生成注入页面所需的全部内容，同一份配置只需编译一次
+     * @param setting 插件设置
+     * @return 渲染包
+     */
+    public JyfacRenderBundle compile(JyfacSetting setting) {
+        return compile(setting, "");
+    }
+    
+    /**
+     * 编译指定公告语言的渲染包
+     * @param setting 已替换为该语言公告内容的插件设置
+     * @param locale 语言标签，默认内容为空字符串
+     * @return 渲染包
+     */
+    public JyfacRenderBundle compile(JyfacSetting setting, String locale) {
+        // 每个配置版本只压缩一次，之后所有请求都使用压缩后的内容
+        String iconSvg = optimizedIconSvg(setting);
+        String rawHtml = generateHtmlContent(setting, iconSvg);
+        String html = JyfacMinifier.html(rawHtml);
+        // 关闭记录按公告HTML的哈希区分，公告内容变化后重新显示
+        String dismissKey = JyfacRenderBundle.contentHash(html);
+        // 静态规则在所有配置间共享，每个配置只生成变量块
+        String themeCss = generateCssContent(setting);
+        String css = JyfacStyleCompiler.BASE_CSS + themeCss;
+        String rawJs = generateJavaScriptContent(setting, dismissKey, locale);
+        String js = JyfacMinifier.js(rawJs);
+        // 每次编译都会执行，体积明细只在调试时输出
+        if (log.isDebugEnabled()) {
+            log.debug("Jyfac渲染包压缩: css变量 {}B, js {}B -> {}B, html {}B -> {}B",
+                utf8Length(themeCss), utf8Length(rawJs), utf8Length(js),
+                utf8Length(rawHtml), utf8Length(html));
+        }
+        
+        String htmlScript = "onReady(function(){" +
+            "if(isDismissed)return;" +
+            "var capsuleHtml=`" + templateLiteral(html) + "`;" +
+            "document.body.insertAdjacentHTML('beforeend',capsuleHtml);" +
+            "});";
+        String hash = JyfacRenderBundle.contentHash(css, js, html);
+        String assetJs = js + ";" + htmlScript;
+        String cssLinks = "<link rel=\"stylesheet\" href=\""
+            + JyfacRenderBundle.assetUrl(JyfacStyleCompiler.BASE_HASH, "base.css") + "\">"
+            + "<link rel=\"stylesheet\" href=\"" + JyfacRenderBundle.assetUrl(hash, "css") + "\">";
+        String headTags = cssLinks
+            + "<script defer src=\"" + JyfacRenderBundle.assetUrl(hash, "js") + "\"></script>";
+        // 页脚直出模式下HTML已由服务端输出，脚本无需再携带HTML模板
+        String footerHeadTags = cssLinks
+            + "<script defer src=\"" + JyfacRenderBundle.assetUrl(hash, "runtime.js") + "\"></script>";
+        String bootstrapTags = "<script>" + generateBootstrapScript(hash, dismissKey) + "</script>";
+        Map<String, JyfacEncodedAsset> assets = new HashMap<>(Map.of(
+            "css", encode("text/css;charset=UTF-8", themeCss),
+            "js", encode("text/javascript;charset=UTF-8", assetJs),
+            "runtime.js", encode("text/javascript;charset=UTF-8", js),
+            "html", encode("text/html;charset=UTF-8", html)
+        ));
+        String iconHash = "";
+        if (isExternalIcon(setting, iconSvg)) {
+            iconHash = iconHash(iconSvg);
+            assets.put("svg", encode("image/svg+xml;charset=UTF-8",
+                JyfacSvgOptimizer.standalone(iconSvg)));
+        }
+        if (log.isDebugEnabled()) {
+            assets.forEach((extension, asset) ->
+                log.debug("Jyfac渲染包 {} {}: {}", hash, extension, asset.sizeSummary()));
+        }
+        Map<String, Integer> injectedBytes = Map.of(
+            "external", utf8Length(headTags),
+            "footer", utf8Length(footerHeadTags),
+            "bootstrap", utf8Length(bootstrapTags),
+            "inline", utf8Length(css) + utf8Length(js) + utf8Length(htmlScript)
+                + "<style></style><script></script><script></script>".length()
+        );
+        return new JyfacRenderBundle(hash, dismissKey, iconHash, css, js, html, htmlScript, assetJs,
+            headTags, footerHeadTags, bootstrapTags, Map.copyOf(assets), injectedBytes);
+    }
+    
+    /**
+     * 生成引导脚本
+     * 仅检查关闭和自动隐藏状态，需要显示时在浏览器空闲时加载静态样式、变量块和脚本
+     * @param hash 内容哈希
+     * @param dismissKey 关闭记录标识
+     * @return 引导脚本
+     */
+    String generateBootstrapScript(String hash, String dismissKey) {
+        // 内联在每个页面中，连同script标签需控制在 BOOTSTRAP_BUDGET 以内
+        return String.format("(function(d,w){var a='%s',k='%s',p=a+'%s.',h=d.head,n=2;"
+            + "if(d.cookie.indexOf('%s='+k)>=0)return;"
+            + "try{if(sessionStorage.getItem('%s')===k)return}catch(e){}"
+            // 静态样式和变量块并行加载，都完成后再加载脚本
+            + "function l(){[a+'%s.base.css',p+'css'].map(function(u){var c=d.createElement('link');"
+            + "c.rel='stylesheet';c.href=u;c.onload=c.onerror=function(){"
+            + "if(!--n){var s=d.createElement('script');s.src=p+'js';h.appendChild(s)}};h.appendChild(c)})}"
+            // 加载的脚本自行等待DOM就绪，空闲回调无需再等待DOMContentLoaded
+            // 不支持requestIdleCallback时由setTimeout代替，对象参数作为延迟时按0处理
+            + "(w.requestIdleCallback||setTimeout)(l,{timeout:2e3})"
+            + "})(document,window)",
+            JyfacRenderBundle.ASSET_PATH + "capsule.",
+            dismissKey,
+            hash,
+            JyfacTargetingService.DISMISS_COOKIE,
+            AUTO_HIDDEN_KEY,
+            JyfacStyleCompiler.BASE_HASH);
+    }
+    
+    /**
+     * 转义模板字符串中有特殊含义的字符，并避免提前结束script标签
+     */
+    private static String templateLiteral(String content) {
+        return content.replace("\\", "\\\\")
+            .replace("`", "\\`")
+            .replace("${", "\\${")
+            .replaceAll("(?i)</script", "<\\\\/script");
+    }
+    
+    private static int utf8Length(String content) {
+        return content.getBytes(StandardCharsets.UTF_8).length;
+    }
+    
+    /**
+     * 生成CSS变量块
+     * 静态规则由 {@link JyfacStyleCompiler#BASE_CSS} 提供，这里只生成随配置变化的自定义属性
+     * @param setting 插件设置
+     * @return 变量块CSS
+     */
+    String generateCssContent(JyfacSetting setting) {
+        return JyfacStyleCompiler.themeCss(setting);
+    }
+    
+    String generateJavaScriptContent(JyfacSetting setting, String dismissKey, String locale) {
+        StringBuilder js = new StringBuilder();
+        
+        // 基础变量定义
+        js.append(String.format("""
+            var dismissCookie = '%s=%s';
+            var isDismissed = document.cookie.split('; ').indexOf(dismissCookie) >= 0;
+            var autoHiddenKey = '%s';
+            var capsuleNodes = null;
+            
+            function onReady(callback) {
+                if (document.readyState === 'loading') {
+                    document.addEventListener('DOMContentLoaded', callback);
+                } else {
+                    callback();
+                }
+            }
+            
+            """, 
+            JyfacTargetingService.DISMISS_COOKIE,
+            dismissKey,
+            AUTO_HIDDEN_KEY
+        ));
+        
+        // 共享调度器，所有定时任务共用一个计时器，页面不可见或公告移出视口时暂停计时
+        js.append("""
+            var scheduler = { tasks: [], timer: null, startedAt: 0, hidden: document.hidden, offScreen: false };
+            
+            function schedule(delay, repeat, run) {
+                scheduler.tasks.push({ delay: delay, remaining: delay, repeat: repeat, run: run });
+                resumeScheduler();
+            }
+            
+            function pauseScheduler() {
+                if (scheduler.timer) {
+                    clearTimeout(scheduler.timer);
+                    scheduler.timer = null;
+                    var elapsed = Date.now() - scheduler.startedAt;
+                    scheduler.tasks.forEach(function(task) {
+                        task.remaining -= elapsed;
+                    });
+                }
+            }
+            
+            function resumeScheduler() {
+                pauseScheduler();
+                if (scheduler.hidden || scheduler.offScreen || !scheduler.tasks.length) return;
+                var next = Infinity;
+                scheduler.tasks.forEach(function(task) {
+                    next = Math.min(next, task.remaining);
+                });
+                scheduler.startedAt = Date.now();
+                scheduler.timer = setTimeout(runScheduler, Math.max(0, next));
+            }
+            
+            function runScheduler() {
+                var elapsed = Date.now() - scheduler.startedAt;
+                var due = [];
+                scheduler.timer = null;
+                scheduler.tasks = scheduler.tasks.filter(function(task) {
+                    task.remaining -= elapsed;
+                    if (task.remaining > 0) return true;
+                    due.push(task);
+                    task.remaining = task.delay;
+                    return task.repeat;
+                });
+                due.forEach(function(task) {
+                    task.run();
+                });
+                resumeScheduler();
+            }
+            
+            function stopScheduler() {
+                pauseScheduler();
+                scheduler.tasks = [];
+            }
+            
+            document.addEventListener('visibilitychange', function() {
+                scheduler.hidden = document.hidden;
+                resumeScheduler();
+            });
+            
+            function hideCapsule() {
+                var bar = capsuleNodes && capsuleNodes.bar;
+                if (!bar || bar.classList.contains('closing')) return;
+                stopScheduler();
+                if (capsuleNodes.observer) {
+                    capsuleNodes.observer.disconnect();
+                }
+                if (capsuleNodes.source) {
+                    capsuleNodes.source.close();
+                }
+                bar.addEventListener('animationend', function(e) {
+                    if (e.target === bar) {
+                        bar.remove();
+                    }
+                });
+                bar.classList.add('closing');
+            }
+            
+            """);
+        
+        // 多行轮播，只切换两个缓存节点的类名，过渡效果由CSS动画完成
+        boolean rotate = "multi".equals(setting.displayMode()) && setting.autoScroll();
+        if (rotate) {
+            js.append("""
+                function rotateCapsule() {
+                    var items = capsuleNodes.items;
+                    if (items.length < 2) return;
+                    var current = items[capsuleNodes.index];
+                    capsuleNodes.index = (capsuleNodes.index + 1) % items.length;
+                    current.className = 'text-item leaving';
+                    items[capsuleNodes.index].className = 'text-item active';
+                }
+                
+                """);
+        }
+        
+        // 实时推送，收到新版本公告时原地替换文本区域
+        if (setting.livePush()) {
+            js.append(String.format("""
+                function connectLive() {
+                    if (!window.EventSource) return;
+                    var source = new EventSource('%s?locale=%s&key=' + dismissCookie.split('=')[1]);
+                    capsuleNodes.source = source;
+                    source.addEventListener('update', function(e) {
+                        var update = JSON.parse(e.data);
+                        if (update.key === dismissCookie.split('=')[1]) return;
+                        var template = document.createElement('template');
+                        template.innerHTML = update.html;
+                        var next = template.content.querySelector('.capsule-text-container');
+                        var current = capsuleNodes.bar.querySelector('.capsule-text-container');
+                        if (!next || !current) return;
+                        current.replaceWith(next);
+                        dismissCookie = '%s=' + update.key;
+                        capsuleNodes.items = next.querySelectorAll('.capsule-text.multi-line .text-item');
+                        capsuleNodes.index = 0;
+                    });
+                }
+                
+                """, JyfacLiveRouter.LIVE_PATH, URLEncoder.encode(locale, StandardCharsets.UTF_8),
+                JyfacTargetingService.DISMISS_COOKIE));
+        }
+        
+        // 展示统计，计数先累积在页面内，页面隐藏时合并为一次sendBeacon上报
+        if (setting.analytics()) {
+            js.append(String.format("""
+                var beaconCounts = {};
+                
+                function track(index) {
+                    var key = dismissCookie.split('=')[1];
+                    var counts = beaconCounts[key] || (beaconCounts[key] = [0, 0, 0]);
+                    counts[index]++;
+                }
+                
+                function flushBeacons() {
+                    var body = '';
+                    for (var key in beaconCounts) {
+                        body += key + ',' + beaconCounts[key].join(',') + '\\n';
+                    }
+                    beaconCounts = {};
+                    if (body && navigator.sendBeacon) {
+                        navigator.sendBeacon('%s', body);
+                    }
+                }
+                
+                document.addEventListener('visibilitychange', function() {
+                    if (document.hidden) {
+                        flushBeacons();
+                    }
+                });
+                window.addEventListener('pagehide', flushBeacons);
+                document.addEventListener('click', function(e) {
+                    var target = capsuleNodes && e.target.closest && e.target.closest('.close-btn, .capsule-bar');
+                    if (target) {
+                        track(target.classList.contains('close-btn') ? 2 : 1);
+                    }
+                });
+                
+                """, JyfacBeaconEndpoint.BEACON_PATH));
+        }
+        
+        // 关闭功能
+        if (setting.allowClose()) {
+            js.append("""
+                document.addEventListener('click', function(e) {
+                    if (e.target.closest && e.target.closest('.close-btn')) {
+                        document.cookie = dismissCookie + '; path=/; max-age=31536000; SameSite=Lax';
+                        hideCapsule();
+                    }
+                });
+                
+                """);
+        }
+        
+        // 初始化函数，在插入HTML的脚本之后执行
+        js.append("""
+            function initCapsule() {
+                var container = document.querySelector('.capsule-container');
+                if (!container || capsuleNodes) return;
+                // 页面被缓存时服务端无法跳过，已关闭的访客在客户端移除公告
+                if (isDismissed) {
+                    container.remove();
+                    return;
+                }
+                var bar = container.querySelector('.capsule-bar');
+                if (!bar) return;
+                capsuleNodes = {
+                    bar: bar,
+                    items: container.querySelectorAll('.capsule-text.multi-line .text-item'),
+                    index: 0,
+                    observer: null
+                };
+                if ('IntersectionObserver' in window) {
+                    capsuleNodes.observer = new IntersectionObserver(function(entries) {
+                        scheduler.offScreen = !entries[entries.length - 1].isIntersecting;
+                        bar.classList.toggle('paused', scheduler.offScreen);
+                        resumeScheduler();
+                    });
+                    capsuleNodes.observer.observe(bar);
+                }
+            """);
+        if (rotate) {
+            js.append(String.format("""
+                    if (capsuleNodes.items.length > 1 || %b) {
+                        schedule(%d, true, rotateCapsule);
+                    }
+                """, setting.livePush(), setting.scrollInterval() * 1000));
+        }
+        if (setting.autoHideDelay() > 0) {
+            js.append(String.format("""
+                    schedule(%d, false, function() {
+                        try {
+                            sessionStorage.setItem(autoHiddenKey, dismissCookie.split('=')[1]);
+                        } catch (e) {}
+                        hideCapsule();
+                    });
+                """, setting.autoHideDelay() * 1000));
+        }
+        if (setting.analytics()) {
+            js.append("""
+                    track(0);
+                """);
+        }
+        if (setting.livePush()) {
+            js.append("""
+                    connectLive();
+                """);
+        }
+        js.append("""
+            }
+            
+            onReady(function() {
+                setTimeout(initCapsule, 0);
+            });
+            """);
+        
+        return js.toString();
+    }
+    
+    String generateHtmlContent(JyfacSetting setting) {
+        return generateHtmlContent(setting, optimizedIconSvg(setting));
+    }
+    
+    private String generateHtmlContent(JyfacSetting setting, String iconSvg) {
+        String iconHtml = getIconContent(setting, iconSvg);
+        if (!iconHtml.isEmpty()) {
+            iconHtml = "<div class=\"capsule-icon\">" + iconHtml + "</div>";
+        }
+        
+        String closeButtonHtml = setting.allowClose() ? 
+            "<button class=\"close-btn\" aria-label=\"关闭\"></button>" : "";
+        
+        String textContentHtml;
+        
+        if ("multi".equals(setting.displayMode())) {
+            // 多行模式
+            StringBuilder multiLineHtml = new StringBuilder();
+            multiLineHtml.append("<div class=\"capsule-text-container\">");
+            multiLineHtml.append("<div class=\"capsule-text multi-line\">");
+            
+            String[] lines = setting.multiLineTexts().split("\\n");
+            for (int i = 0; i < lines.length; i++) {
+                String activeClass = i == 0 ? " active" : "";
+                multiLineHtml.append(String.format(
+                    "<div class=\"text-item%s\">%s</div>", 
+                    activeClass, 
+                    renderText(lines[i].trim())
+                ));
+            }
+            
+            multiLineHtml.append("</div>");
+            multiLineHtml.append("</div>");
+            textContentHtml = multiLineHtml.toString();
+        } else {
+            // 单行模式
+            textContentHtml = String.format(
+                "<div class=\"capsule-text-container\">" +
+                "<div class=\"capsule-text single-line\">" +
+                "<div class=\"text-item active\">%s</div>" +
+                "</div>" +
+                "</div>", 
+                renderText(setting.text())
+            );
+        }
+        
+        return String.format("""
+            <div class="capsule-container">
+                <div class="capsule-bar">
+                    <div class="capsule-content">
+                        %s
+                        %s
+                    </div>
+                    %s
+                </div>
+            </div>
+            """, iconHtml, textContentHtml, closeButtonHtml);
+    }
+    
+    /**
+     * 渲染一行公告内容
+     * 按内容哈希缓存渲染结果，配置变更或公告切换时未变化的行无需重新解析
+     * @param text 公告内容
+     * @return 经过清理的HTML片段
+     */
+    private String renderText(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String key = JyfacRenderBundle.contentHash(text);
+        String html = renderedTexts.get(key);
+        if (html == null) {
+            if (renderedTexts.size() >= MAX_RENDERED_TEXTS) {
+                renderedTexts.clear();
+            }
+            html = JyfacMarkdown.render(text);
+            renderedTexts.put(key, html);
+        }
+        return html;
+    }
+    
+    /**
+     * 生成资源的预压缩版本，相同内容只压缩一次
+     * 渲染包在配置变更时由后台编译，压缩开销不由页面请求承担
+     */
+    private JyfacEncodedAsset encode(String contentType, String content) {
+        String key = JyfacRenderBundle.contentHash(contentType, content);
+        JyfacEncodedAsset asset = encodedAssets.get(key);
+        if (asset == null) {
+            if (encodedAssets.size() >= MAX_ENCODED_ASSETS) {
+                encodedAssets.clear();
+            }
+            asset = JyfacAssetEncoder.encode(contentType, content);
+            encodedAssets.put(key, asset);
+        }
+        return asset;
+    }
+    
+    /**
+     * 获取优化后的SVG图标
+     * 每个配置版本只优化一次，未显示SVG图标时返回null
+     * @param setting 插件设置
+     * @return 优化后的SVG
+     */
+    private String optimizedIconSvg(JyfacSetting setting) {
+        if (!setting.showIcon() || !"svg".equals(setting.iconType())) {
+            return null;
+        }
+        String svg = setting.customSvg() != null && !setting.customSvg().trim().isEmpty()
+            ? setting.customSvg()
+            : JyfacSetting.DEFAULT_ICON_SVG;
+        return JyfacSvgOptimizer.optimize(svg);
+    }
+    
+    private static boolean isExternalIcon(JyfacSetting setting, String iconSvg) {
+        return iconSvg != null && "external".equals(setting.iconDelivery());
+    }
+    
+    private static String iconHash(String iconSvg) {
+        return JyfacRenderBundle.contentHash(iconSvg);
+    }
+    
+    /**
+     * 获取图标内容
+     * 根据设置返回SVG或图片标签，外部图标模式下SVG以带内容哈希的图片地址引用
+     * @param setting 插件设置
+     * @param iconSvg 优化后的SVG图标
+     * @return 图标HTML内容
+     */
+    private String getIconContent(JyfacSetting setting, String iconSvg) {
+        if (!setting.showIcon()) {
+            return "";
+        }
+        
+        return switch (setting.iconType()) {
+            case "svg" -> isExternalIcon(setting, iconSvg)
+                ? "<img src=\"" + JyfacRenderBundle.assetUrl(iconHash(iconSvg), "svg")
+                    + "\" alt=\"图标\" width=\"32\" height=\"32\">"
+                : iconSvg;
+            case "image" -> {
+                String imageUrl = setting.imageUrl() != null && !setting.imageUrl().trim().isEmpty() 
+                    ? setting.imageUrl() 
+                    : "/plugins/jyfac/assets/static/tz.svg";
+                yield "<img src=\"" + imageUrl + "\" alt=\"图标\" width=\"32\" height=\"32\">";
+            }
+            default -> "";
+        };
+    }
+}
@@ -0,0 +1,353 @@
+package www.ppkok.com.jyfac;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Jyfac插件渲染包服务
+ * 每个配置版本、生效公告和公告语言组合只编译一次渲染包，并按内容哈希缓存最近的几个版本
+ * 配置或生效公告变化时在后台编译全部语言的渲染包，页面渲染只读取编译完成的版本
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+@Slf4j
+@Component
+public class JyfacBundleService {
+    
+    /**
+     * 按公告语言保留的渲染包数量上限
+     */
+    private static final int MAX_CACHED_LOCALES = 16;
+    
+    /**
+     * 语言缓存之外按内容哈希保留的旧版本渲染包数量，供仍引用旧地址的页面使用
+     */
+    private static final int MAX_RETAINED_BUNDLES = 8;
+    
+    /**
+     * 按内容哈希保留的条目数量上限
+     * 每个语言的渲染包占用内容哈希和图标哈希两个条目，上限随语言缓存上限调整
+     */
+    private static final int MAX_CACHED_BUNDLES = MAX_CACHED_LOCALES * 2 + MAX_RETAINED_BUNDLES;
+    
+    /**
+     * 默认内容在语言缓存中的键
+     */
+    private static final String DEFAULT_LOCALE = "";
+    
+    private final JyfacBundleCompiler compiler;
+    
+    private final JyfacMetrics metrics;
+    
+    private final JyfacService jyfacService;
+    
+    private final JyfacAnnouncementService announcementService;
+    
+    /**
+     * 按公告语言索引的当前配置快照、生效公告及其渲染包，请求时只需一次查找
+     */
+    private final Map<String, Compiled> variants = new ConcurrentHashMap<>();
+    
+    /**
+     * 语言缓存的写入顺序，超出上限时淘汰最早写入的语言
+     */
+    private final Deque<String> variantOrder = new ArrayDeque<>();
+    
+    /**
+     * 按内容哈希缓存的渲染包，超出上限时淘汰最早的版本
+     */
+    private final Map<String, JyfacRenderBundle> bundles = Collections.synchronizedMap(
+        new LinkedHashMap<String, JyfacRenderBundle>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, JyfacRenderBundle> eldest) {
+                return size() > MAX_CACHED_BUNDLES;
+            }
+        });
+    
+    /**
+     * 后台编译请求，编译进行中到达的多个请求只保留最新一个
+     */
+    private final Sinks.Many<JyfacSetting> precompileRequests = Sinks.many().unicast().onBackpressureBuffer();
+    
+    private final Disposable precompilation;
+    
+    public JyfacBundleService(JyfacBundleCompiler compiler, JyfacMetrics metrics, JyfacService jyfacService,
+                              JyfacAnnouncementService announcementService) {
+        this.compiler = compiler;
+        this.metrics = metrics;
+        this.jyfacService = jyfacService;
+        this.announcementService = announcementService;
+        this.precompilation = Flux.merge(jyfacService.updates(), precompileRequests.asFlux())
+            .onBackpressureLatest()
+            .publishOn(Schedulers.boundedElastic(), 1)
+            .subscribe(this::precompileNow, e -> log.warn("Jyfac后台编译订阅异常终止", e));
+    }
+    
+    /**
+     * 获取配置对应的渲染包
+     * 配置快照未变化时直接返回已编译的渲染包
+     * @param setting 插件设置
+     * @return 渲染包
+     */
+    public JyfacRenderBundle getBundle(JyfacSetting setting) {
+        return getBundle(setting, null);
+    }
+    
+    /**
+     * 获取配置在指定公告语言下的渲染包
+     * @param setting 插件设置
+     * @param locale 设置中的语言标签，为null时使用默认内容
+     * @return 渲染包
+     */
+    public JyfacRenderBundle getBundle(JyfacSetting setting, String locale) {
+        String key = locale == null ? DEFAULT_LOCALE : locale;
+        Compiled compiled = variants.get(key);
+        if (compiled != null && compiled.setting() == setting
+            && compiled.announcements() == announcementService.activeContents()) {
+            metrics.recordBundleCache(setting, true);
+            return compiled.bundle();
+        }
+        metrics.recordBundleCache(setting, false);
+        return compile(setting, key).bundle();
+    }
+    
+    /**
+     * 获取页面渲染使用的渲染包及其编译时的配置，页面请求不编译渲染包
+     * 当前配置的渲染包仍在后台编译时继续使用该语言最近编译的版本，该语言尚未编译时使用默认内容的版本，
+     * 页面按渲染包编译时的配置选择注入方式，不会混用两个配置版本
+     * 只有还没有任何渲染包的冷启动才在请求中编译
+     * @param setting 插件设置
+     * @param locale 设置中的语言标签，为null时使用默认内容
+     * @return 渲染包及其编译时的配置
+     */
+    public Compiled getRenderVariant(JyfacSetting setting, String locale) {
+        String key = locale == null ? DEFAULT_LOCALE : locale;
+        Compiled compiled = variants.get(key);
+        if (compiled != null && compiled.setting() == setting
+            && compiled.announcements() == announcementService.activeContents()) {
+            metrics.recordBundleCache(setting, true);
+            return compiled;
+        }
+        metrics.recordBundleCache(setting, false);
+        if (compiled == null) {
+            compiled = variants.get(DEFAULT_LOCALE);
+        }
+        if (compiled == null) {
+            return compile(setting, key);
+        }
+        precompile(setting);
+        return compiled;
+    }
+    
+    /**
+     * 提交后台编译，编译配置的全部语言版本渲染包
+     * @param setting 插件设置
+     */
+    public void precompile(JyfacSetting setting) {
+        // 页面请求和公告切换来自不同线程，发射需要串行
+        synchronized (precompileRequests) {
+            precompileRequests.tryEmitNext(setting);
+        }
+    }
+    
+    /**
+     * 获取配置的全部语言版本渲染包
+     * @param setting 插件设置
+     * @return 默认内容及每种语言的渲染包
+     */
+    public List<JyfacRenderBundle> getBundles(JyfacSetting setting) {
+        return new ArrayList<>(getLocaleBundles(setting).values());
+    }
+    
+    /**
+     * 获取配置的全部语言版本渲染包及其公告语言
+     * @param setting 插件设置
+     * @return 按公告语言索引的渲染包，默认内容的键为空字符串
+     */
+    public Map<String, JyfacRenderBundle> getLocaleBundles(JyfacSetting setting) {
+        Map<String, JyfacRenderBundle> result = new LinkedHashMap<>();
+        result.put(DEFAULT_LOCALE, getBundle(setting));
+        for (JyfacLocaleContent content : setting.localizedContents()) {
+            String locale = content.locale() == null ? "" : content.locale().trim();
+            if (!locale.isEmpty() && !result.containsKey(locale)) {
+                result.put(locale, getBundle(setting, locale));
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 载入持久化的渲染包，作为配置快照对应的已编译版本
+     * 生效公告与编译时相同时直接复用，否则由首次请求提交后台编译
+     * @param setting 插件设置
+     * @param announcements 编译渲染包时生效的定时公告
+     * @param localeBundles 按公告语言索引的渲染包
+     */
+    public synchronized void restore(JyfacSetting setting, List<String> announcements,
+                                     Map<String, JyfacRenderBundle> localeBundles) {
+        localeBundles.forEach((locale, bundle) -> {
+            bundles.putIfAbsent(bundle.hash(), bundle);
+            if (!bundle.iconHash().isEmpty()) {
+                bundles.put(bundle.iconHash(), bundle);
+            }
+            if (variants.put(locale, new Compiled(setting, announcements, bundle)) == null) {
+                variantOrder.addLast(locale);
+                while (variantOrder.size() > MAX_CACHED_LOCALES) {
+                    variants.remove(variantOrder.removeFirst());
+                }
+            }
+        });
+    }
+    
+    /**
+     * 根据内容哈希查找渲染包
+     * @param hash 内容哈希
+     * @return 渲染包
+     */
+    public Optional<JyfacRenderBundle> findByHash(String hash) {
+        // 语言缓存中的渲染包正在被页面引用，先从语言缓存查找，不受哈希缓存淘汰影响
+        for (Compiled compiled : variants.values()) {
+            JyfacRenderBundle bundle = compiled.bundle();
+            if (bundle.hash().equals(hash) || (!bundle.iconHash().isEmpty() && bundle.iconHash().equals(hash))) {
+                return Optional.of(bundle);
+            }
+        }
+        return Optional.ofNullable(bundles.get(hash));
+    }
+    
+    /**
+     * 是否为当前或最近版本渲染包的关闭记录标识
+     * 定时公告和各语言内容都编译在渲染包中，标识覆盖全部正在展示的公告
+     * @param dismissKey 关闭记录标识
+     * @return 是否为已知的标识
+     */
+    public boolean isKnownDismissKey(String dismissKey) {
+        for (Compiled compiled : variants.values()) {
+            if (compiled.bundle().dismissKey().equals(dismissKey)) {
+                return true;
+            }
+        }
+        synchronized (bundles) {
+            for (JyfacRenderBundle bundle : bundles.values()) {
+                if (bundle.dismissKey().equals(dismissKey)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 停止后台编译，插件停止时调用
+     */
+    public void dispose() {
+        precompilation.dispose();
+        precompileRequests.tryEmitComplete();
+    }
+    
+    /**
+     * 清空全部渲染包缓存，插件停止时调用
+     */
+    public synchronized void clear() {
+        variants.clear();
+        variantOrder.clear();
+        bundles.clear();
+    }
+    
+    /**
+     * 生效公告在窗口边界切换时立即在后台编译新的渲染包，避免由页面请求承担编译开销
+     */
+    @EventListener(JyfacAnnouncementsChangedEvent.class)
+    public void onAnnouncementsChanged() {
+        JyfacSetting setting = jyfacService.peekSetting();
+        if (setting != null) {
+            precompile(setting);
+        }
+    }
+    
+    private void precompileNow(JyfacSetting setting) {
+        if (!Boolean.TRUE.equals(setting.enabled())) {
+            return;
+        }
+        try {
+            getLocaleBundles(setting);
+        } catch (RuntimeException e) {
+            log.warn("Jyfac后台编译渲染包失败", e);
+        }
+    }
+    
+    private synchronized Compiled compile(JyfacSetting setting, String locale) {
+        List<String> announcements = announcementService.activeContents();
+        Compiled compiled = variants.get(locale);
+        if (compiled != null && compiled.setting() == setting
+            && compiled.announcements() == announcements) {
+            return compiled;
+        }
+        // 配置内容和生效公告都相同时复用已有渲染包，只更新快照引用
+        JyfacRenderBundle bundle;
+        if (compiled != null && compiled.setting().equals(setting)
+            && compiled.announcements().equals(announcements)) {
+            bundle = compiled.bundle();
+        } else {
+            long start = System.nanoTime();
+            bundle = compiler.compile(applyContent(setting, locale, announcements), locale);
+            metrics.recordBundleCompile(System.nanoTime() - start);
+        }
+        bundles.putIfAbsent(bundle.hash(), bundle);
+        // 外部SVG图标以图标自身的内容哈希寻址，图标不变时地址在配置变更间保持不变
+        if (!bundle.iconHash().isEmpty()) {
+            bundles.put(bundle.iconHash(), bundle);
+        }
+        Compiled current = new Compiled(setting, announcements, bundle);
+        // 只有当前配置快照的渲染包写入语言缓存，延迟执行的旧配置编译不会覆盖新版本
+        JyfacSetting latest = jyfacService.peekSetting();
+        if (latest != null && latest != setting) {
+            return current;
+        }
+        if (variants.put(locale, current) == null) {
+            variantOrder.addLast(locale);
+            while (variantOrder.size() > MAX_CACHED_LOCALES) {
+                variants.remove(variantOrder.removeFirst());
+            }
+        }
+        return current;
+    }
+    
+    /**
+     * 确定渲染包的公告内容
+     * 存在生效的定时公告时替换设置中的公告内容，单行模式显示优先级最高的一条，多行模式轮播全部生效公告
+     * 否则使用指定语言的公告内容，该语言缺少的内容沿用默认内容
+     */
+    private static JyfacSetting applyContent(JyfacSetting setting, String locale,
+                                             List<String> announcements) {
+        if (!announcements.isEmpty()) {
+            return setting.withContent(announcements.get(0), String.join("\n", announcements));
+        }
+        return setting.localized(locale);
+    }
+    
+    /**
+     * 编译完成的渲染包
+     * 
+     * @param setting 编译时的配置快照
+     * @param announcements 编译时生效的定时公告
+     * @param bundle 渲染包
+     */
+    public record Compiled(JyfacSetting setting, List<String> announcements, JyfacRenderBundle bundle) {
+    }
+}
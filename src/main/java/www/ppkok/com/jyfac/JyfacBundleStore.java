@@ -0,0 +1,307 @@
+package www.ppkok.com.jyfac;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import run.halo.app.infra.utils.JsonUtils;
+import run.halo.app.plugin.PluginContext;
+
+/**
+ * Jyfac插件渲染包持久化
+ * 把配置快照及其全部语言的渲染包（含预压缩内容）写入工作目录，重启时通过内存映射一次读入
+ * 插件启动后无需等待读取配置和编译渲染包即可注入，再由后台与实时配置核对
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JyfacBundleStore {
+    
+    /**
+     * 文件标识 JYFB
+     */
+    private static final int MAGIC = 0x4A594642;
+    
+    /**
+     * 文件格式版本，格式变化时递增，旧版本文件直接丢弃
+     */
+    private static final int FORMAT_VERSION = 1;
+    
+    /**
+     * 文件大小上限，超出时视为损坏
+     */
+    private static final long MAX_FILE_SIZE = 16 * 1024 * 1024;
+    
+    private static final String FILE_NAME = "render-bundle.bin";
+    
+    private final PluginContext pluginContext;
+    
+    private final Environment environment;
+    
+    /**
+     * 最近一次读取或写入的内容摘要，内容不变时跳过写入
+     */
+    private volatile String lastDigest;
+    
+    /**
+     * 读取持久化的渲染包
+     * 文件不存在、已损坏或由其他插件版本写入时返回空结果
+     * @return 配置快照及其渲染包
+     */
+    public Optional<Snapshot> load() {
+        Path file = file();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAX_FILE_SIZE) {
+                log.warn("Jyfac渲染包文件过大，已忽略: {}", file);
+                return Optional.empty();
+            }
+            Snapshot snapshot = read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            if (snapshot != null) {
+                log.info("Jyfac已读取持久化渲染包: {} 个渲染包, 配置指纹 {}",
+                    snapshot.bundles().size(), snapshot.fingerprint());
+            }
+            return Optional.ofNullable(snapshot);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException | RuntimeException e) {
+            log.warn("读取Jyfac渲染包文件失败，将重新编译: {}", file, e);
+            return Optional.empty();
+        }
+    }
+    
+    /**
+     * 写入渲染包，内容与文件中的相同时跳过
+     * 先写入临时文件再整体替换，写入中途停止不会留下不完整的文件
+     * @param snapshot 配置快照及其渲染包
+     */
+    public void save(Snapshot snapshot) {
+        Path file = file();
+        try {
+            byte[] body = body(snapshot);
+            String digest = HexFormat.of().formatHex(sha256(ByteBuffer.wrap(body)));
+            if (digest.equals(lastDigest) && Files.exists(file)) {
+                return;
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length + 128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            writeString(out, pluginVersion());
+            writeString(out, snapshot.fingerprint());
+            writeString(out, digest);
+            out.writeInt(body.length);
+            out.write(body);
+            
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(FILE_NAME + ".tmp");
+            Files.write(temp, bytes.toByteArray());
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            lastDigest = digest;
+            log.info("Jyfac渲染包已持久化: {} 个渲染包, {}B", snapshot.bundles().size(), bytes.size());
+        } catch (IOException | RuntimeException e) {
+            log.warn("写入Jyfac渲染包文件失败: {}", file, e);
+        }
+    }
+    
+    /**
+     * 渲染包文件路径，位于Halo工作目录下以插件名命名的目录中
+     */
+    Path file() {
+        String workDir = environment.getProperty("halo.work-dir",
+            Path.of(System.getProperty("user.home"), ".halo2").toString());
+        return Path.of(workDir, "plugin-data", pluginContext.getName(), FILE_NAME);
+    }
+    
+    private String pluginVersion() {
+        return Objects.toString(pluginContext.getVersion(), "");
+    }
+    
+    private Snapshot read(ByteBuffer buffer) {
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            log.info("Jyfac渲染包文件格式不匹配，已忽略");
+            return null;
+        }
+        // 不同插件版本的编译结果可能不同，只使用当前版本写入的文件
+        if (!pluginVersion().equals(readString(buffer))) {
+            log.info("Jyfac渲染包文件由其他插件版本写入，已忽略");
+            return null;
+        }
+        String fingerprint = readString(buffer);
+        String digest = readString(buffer);
+        int length = buffer.getInt();
+        ByteBuffer body = buffer.slice(buffer.position(), length);
+        if (!digest.equals(HexFormat.of().formatHex(sha256(body.duplicate())))) {
+            log.warn("Jyfac渲染包文件校验失败，已忽略");
+            return null;
+        }
+        
+        JyfacSetting setting = JsonUtils.jsonToObject(readString(body), JyfacSetting.class);
+        int announcementCount = body.getInt();
+        List<String> announcements = new ArrayList<>(announcementCount);
+        for (int i = 0; i < announcementCount; i++) {
+            announcements.add(readString(body));
+        }
+        int bundleCount = body.getInt();
+        Map<String, JyfacRenderBundle> bundles = new LinkedHashMap<>();
+        for (int i = 0; i < bundleCount; i++) {
+            bundles.put(readString(body), readBundle(body));
+        }
+        Snapshot snapshot = new Snapshot(setting, List.copyOf(announcements),
+            Collections.unmodifiableMap(bundles));
+        if (!fingerprint.equals(snapshot.fingerprint())) {
+            log.warn("Jyfac渲染包文件中的配置指纹不一致，已忽略");
+            return null;
+        }
+        lastDigest = digest;
+        return snapshot;
+    }
+    
+    private static byte[] body(Snapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 * 1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, JsonUtils.objectToJson(snapshot.setting()));
+        out.writeInt(snapshot.announcements().size());
+        for (String announcement : snapshot.announcements()) {
+            writeString(out, announcement);
+        }
+        out.writeInt(snapshot.bundles().size());
+        for (Map.Entry<String, JyfacRenderBundle> entry : snapshot.bundles().entrySet()) {
+            writeString(out, entry.getKey());
+            writeBundle(out, entry.getValue());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+    
+    private static void writeBundle(DataOutputStream out, JyfacRenderBundle bundle) throws IOException {
+        for (String part : Arrays.asList(bundle.hash(), bundle.dismissKey(), bundle.iconHash(), bundle.css(),
+            bundle.js(), bundle.html(), bundle.htmlScript(), bundle.assetJs(), bundle.headTags(),
+            bundle.footerHeadTags(), bundle.bootstrapTags())) {
+            writeString(out, part);
+        }
+        out.writeInt(bundle.assets().size());
+        for (Map.Entry<String, JyfacEncodedAsset> entry : bundle.assets().entrySet()) {
+            JyfacEncodedAsset asset = entry.getValue();
+            writeString(out, entry.getKey());
+            writeString(out, asset.contentType());
+            writeBytes(out, asset.identity());
+            writeBytes(out, asset.gzip());
+            writeBytes(out, asset.brotli());
+        }
+        out.writeInt(bundle.injectedBytes().size());
+        for (Map.Entry<String, Integer> entry : bundle.injectedBytes().entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+    }
+    
+    private static JyfacRenderBundle readBundle(ByteBuffer buffer) {
+        String[] parts = new String[11];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = readString(buffer);
+        }
+        int assetCount = buffer.getInt();
+        Map<String, JyfacEncodedAsset> assets = new LinkedHashMap<>();
+        for (int i = 0; i < assetCount; i++) {
+            assets.put(readString(buffer), new JyfacEncodedAsset(readString(buffer),
+                readBytes(buffer), readBytes(buffer), readBytes(buffer)));
+        }
+        int injectedCount = buffer.getInt();
+        Map<String, Integer> injectedBytes = new LinkedHashMap<>();
+        for (int i = 0; i < injectedCount; i++) {
+            injectedBytes.put(readString(buffer), buffer.getInt());
+        }
+        return new JyfacRenderBundle(parts[0], parts[1], parts[2], parts[3], parts[4], parts[5],
+            parts[6], parts[7], parts[8], parts[9], parts[10], Map.copyOf(assets), Map.copyOf(injectedBytes));
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(value.length);
+        out.write(value);
+    }
+    
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = readBytes(buffer);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * 从映射区域复制出一段内容，读取完成后映射区域不再被引用
+     */
+    private static byte[] readBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+    
+    private static byte[] sha256(ByteBuffer buffer) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(buffer);
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+    }
+    
+    /**
+     * 持久化的配置快照
+     * 
+     * @param setting 插件设置
+     * @param announcements 编译渲染包时生效的定时公告
+     * @param bundles 按公告语言索引的渲染包，默认内容的键为空字符串
+     */
+    public record Snapshot(JyfacSetting setting, List<String> announcements,
+                           Map<String, JyfacRenderBundle> bundles) {
+        
+        /**
+         * 配置指纹，用于与实时配置核对
+         */
+        public String fingerprint() {
+            return JyfacRenderBundle.contentHash(JsonUtils.objectToJson(setting));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package www.ppkok.com.jyfac;
+
+/**
+ * Jyfac插件预压缩资源
+ * 配置变更时一次性生成原始、gzip和brotli三种编码，请求时按Accept-Encoding直接返回
+ * 
+ * @param contentType 资源类型
+ * @param identity 未压缩内容
+ * @param gzip gzip压缩内容，不比原始内容小时为null
+ * @param brotli brotli压缩内容，编码器不可用或不比gzip小时为null
+ * @author Jyf
+ * @since 1.2.2
+ */
+public record JyfacEncodedAsset(
+        String contentType,
+        byte[] identity,
+        byte[] gzip,
+        byte[] brotli
+) {
+    
+    /**
+     * 获取指定编码的内容
+     * @param encoding 内容编码，br、gzip或identity
+     * @return 对应编码的内容
+     */
+    public byte[] variant(String encoding) {
+        return switch (encoding) {
+            case "br" -> brotli;
+            case "gzip" -> gzip;
+            default -> identity;
+        };
+    }
+    
+    /**
+     * 获取各编码的大小统计
+     * @return 形如 identity=1024B gzip=400B br=350B 的描述
+     */
+    public String sizeSummary() {
+        return "identity=" + identity.length + "B"
+            + " gzip=" + (gzip != null ? gzip.length + "B" : "-")
+            + " br=" + (brotli != null ? brotli.length + "B" : "-");
+    }
+}
@@ -0,0 +1,56 @@
+package www.ppkok.com.jyfac;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.context.IWebContext;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.processor.element.IElementTagStructureHandler;
+import reactor.core.publisher.Mono;
+import run.halo.app.theme.dialect.TemplateFooterProcessor;
+
+/**
+ * Jyfac插件页脚处理器
+ * 页脚直出模式下在页面主体末尾直接输出预先生成的公告HTML，无需等待脚本执行
+ * 公告HTML取自头部处理器为同一请求选定的渲染包，与头部注入的样式和脚本始终属于同一配置版本
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+@Component
+@RequiredArgsConstructor
+public class JyfacFooterProcessor implements TemplateFooterProcessor {
+    
+    /**
+     * 头部处理器为当前请求选定的渲染包
+     */
+    static final String BUNDLE_ATTRIBUTE = JyfacFooterProcessor.class.getName() + ".bundle";
+    
+    private final JyfacService jyfacService;
+    
+    private final JyfacBundleService bundleService;
+    
+    private final JyfacTargetingService targetingService;
+    
+    @Override
+    public Mono<Void> process(ITemplateContext context, IProcessableElementTag tag,
+                             IElementTagStructureHandler structureHandler, IModel model) {
+        // 头部跳过注入或使用其他注入方式时不会选定渲染包，页脚也不输出
+        if (context instanceof IWebContext webContext) {
+            if (webContext.getExchange().getAttributeValue(BUNDLE_ATTRIBUTE) instanceof JyfacRenderBundle bundle) {
+                model.add(context.getModelFactory().createText(bundle.html()));
+            }
+            return Mono.empty();
+        }
+        return jyfacService.getSetting()
+            .filter(setting -> Boolean.TRUE.equals(setting.enabled()))
+            .filter(setting -> "footer".equals(setting.injectMode()))
+            .filter(setting -> targetingService.skipReason(context, setting) == null)
+            .map(setting -> bundleService.getRenderVariant(setting,
+                targetingService.locale(context, setting)).bundle())
+            .filter(bundle -> !targetingService.isDismissed(context, bundle))
+            .doOnNext(bundle -> model.add(context.getModelFactory().createText(bundle.html())))
+            .then();
+    }
+}
@@ -0,0 +1,165 @@
+package www.ppkok.com.jyfac;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Jyfac插件生命周期管理
+ * 启动时预先加载配置、编译规则和渲染包，避免由上线后的首批访客承担冷启动开销
+ * 存在持久化的渲染包时直接载入并立即开始注入，再由后台与实时配置核对
+ * 停止时按顺序释放订阅、定时任务和缓存，反复启用停用不会残留内存
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JyfacLifecycle {
+    
+    /**
+     * 预热等待上限，超时后由首次请求继续加载
+     */
+    private static final Duration PREWARM_TIMEOUT = Duration.ofSeconds(10);
+    
+    /**
+     * 配置变更后的持久化延迟，连续保存配置时只写入最后一次
+     */
+    private static final Duration PERSIST_DELAY = Duration.ofSeconds(5);
+    
+    private final JyfacService jyfacService;
+    
+    private final JyfacAnnouncementService announcementService;
+    
+    private final JyfacBundleService bundleService;
+    
+    private final JyfacTargetingService targetingService;
+    
+    private final JyfacLiveService liveService;
+    
+    private final JyfacBeaconService beaconService;
+    
+    private final JyfacMetrics metrics;
+    
+    private final JyfacBundleStore bundleStore;
+    
+    /**
+     * 后台核对持久化配置的订阅
+     */
+    private volatile Disposable verification;
+    
+    /**
+     * 配置变更后持久化渲染包的订阅
+     */
+    private volatile Disposable persistence;
+    
+    /**
+     * 预热配置快照、生效公告、投放规则和全部语言的渲染包
+     */
+    public void start() {
+        long start = System.nanoTime();
+        try {
+            // 先加载定时公告，预热的渲染包才包含当前生效的公告
+            announcementService.reload().block(PREWARM_TIMEOUT);
+            persistence = jyfacService.updates()
+                .sampleTimeout(setting -> Mono.delay(PERSIST_DELAY))
+                .publishOn(Schedulers.boundedElastic())
+                .subscribe(this::persist, e -> log.warn("Jyfac持久化订阅异常终止", e));
+            Optional<JyfacBundleStore.Snapshot> persisted = bundleStore.load();
+            if (persisted.isPresent()) {
+                restore(persisted.get(), start);
+                return;
+            }
+            JyfacSetting setting = jyfacService.refresh().block(PREWARM_TIMEOUT);
+            if (setting == null) {
+                return;
+            }
+            List<JyfacRenderBundle> bundles = prewarm(setting);
+            log.info("Jyfac预热完成: {} 个渲染包, 耗时 {}ms", bundles.size(),
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+            persist(setting);
+        } catch (RuntimeException e) {
+            log.warn("Jyfac预热失败，将在首次请求时加载", e);
+        }
+    }
+    
+    /**
+     * 以持久化的配置和渲染包作为初始快照，后台读取实时配置后替换并重新写入
+     * 读取失败或超时时继续使用持久化的内容，不覆盖文件
+     */
+    private void restore(JyfacBundleStore.Snapshot persisted, long start) {
+        JyfacSetting setting = persisted.setting();
+        jyfacService.restore(setting);
+        bundleService.restore(setting, persisted.announcements(), persisted.bundles());
+        targetingService.prewarm(setting);
+        log.info("Jyfac已从持久化渲染包恢复: {} 个渲染包, 耗时 {}ms", persisted.bundles().size(),
+            Duration.ofNanos(System.nanoTime() - start).toMillis());
+        verification = jyfacService.refresh()
+            .publishOn(Schedulers.boundedElastic())
+            .doOnSuccess(current -> {
+                if (current == null) {
+                    log.warn("Jyfac核对持久化配置失败，继续使用持久化的渲染包");
+                }
+            })
+            .subscribe(current -> {
+                if (!current.equals(setting)) {
+                    log.info("Jyfac持久化配置已过期，已切换到实时配置");
+                }
+                prewarm(current);
+                persist(current);
+            }, e -> log.warn("Jyfac核对持久化配置失败", e));
+    }
+    
+    private List<JyfacRenderBundle> prewarm(JyfacSetting setting) {
+        if (!Boolean.TRUE.equals(setting.enabled())) {
+            return List.of();
+        }
+        targetingService.prewarm(setting);
+        return bundleService.getBundles(setting);
+    }
+    
+    /**
+     * 把配置快照及其渲染包写入工作目录，内容未变化时不写入
+     */
+    private void persist(JyfacSetting setting) {
+        try {
+            Map<String, JyfacRenderBundle> bundles = Boolean.TRUE.equals(setting.enabled())
+                ? bundleService.getLocaleBundles(setting) : Map.of();
+            bundleStore.save(new JyfacBundleStore.Snapshot(setting,
+                announcementService.activeContents(), bundles));
+        } catch (RuntimeException e) {
+            log.warn("Jyfac持久化渲染包失败", e);
+        }
+    }
+    
+    /**
+     * 写入未保存的统计和最新的渲染包，释放订阅、定时任务、缓存和指标
+     */
+    public void stop() {
+        for (Disposable pending : new Disposable[] {verification, persistence}) {
+            if (pending != null) {
+                pending.dispose();
+            }
+        }
+        JyfacSetting setting = jyfacService.peekSetting();
+        if (setting != null) {
+            persist(setting);
+        }
+        liveService.dispose();
+        beaconService.dispose();
+        bundleService.dispose();
+        announcementService.dispose();
+        jyfacService.clear();
+        bundleService.clear();
+        targetingService.clear();
+        metrics.close();
+    }
+}
@@ -0,0 +1,56 @@
+package www.ppkok.com.jyfac;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * Jyfac插件实时推送路由
+ * 以Server-Sent Events推送公告更新，页面无需刷新即可看到新内容
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+@Configuration
+@RequiredArgsConstructor
+public class JyfacLiveRouter {
+    
+    /**
+     * 实时推送的访问路径
+     */
+    public static final String LIVE_PATH = "/plugins/jyfac/live";
+    
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+    
+    private final JyfacLiveService liveService;
+    
+    @Bean
+    RouterFunction<ServerResponse> jyfacLiveRouterFunction() {
+        return RouterFunctions.route()
+            .GET(LIVE_PATH, this::handleLive)
+            .build();
+    }
+    
+    private Mono<ServerResponse> handleLive(ServerRequest request) {
+        // 浏览器自动重连时通过Last-Event-ID带回最后收到的公告版本
+        String key = request.headers().firstHeader(LAST_EVENT_ID);
+        if (key == null) {
+            key = request.queryParam("key").orElse("");
+        }
+        return ServerResponse.ok()
+            .contentType(MediaType.TEXT_EVENT_STREAM)
+            .header(HttpHeaders.CACHE_CONTROL, "no-store")
+            // 禁止Nginx缓冲事件流
+            .header("X-Accel-Buffering", "no")
+            .body(BodyInserters.fromServerSentEvents(
+                liveService.events(key, request.queryParam("locale").orElse(""))));
+    }
+}
@@ -0,0 +1,188 @@
+package www.ppkok.com.jyfac;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import run.halo.app.infra.utils.JsonUtils;
+
+/**
+ * Jyfac插件实时推送服务
+ * 配置或生效公告变化时只生成一次更新事件，通过同一个热广播推送给所有已打开的页面
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+@Slf4j
+@Component
+public class JyfacLiveService {
+    
+    /**
+     * 心跳间隔，防止代理在空闲时断开连接
+     */
+    static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(30);
+    
+    /**
+     * 浏览器断线后的重连间隔
+     */
+    private static final Duration RETRY = Duration.ofSeconds(15);
+    
+    private static final LiveEvent HEARTBEAT =
+        new LiveEvent(null, ServerSentEvent.<String>builder().comment("ping").build());
+    
+    private static final ServerSentEvent<String> UNAVAILABLE =
+        ServerSentEvent.<String>builder().comment("unavailable").retry(RETRY).build();
+    
+    private final JyfacService jyfacService;
+    
+    private final JyfacBundleService bundleService;
+    
+    /**
+     * 所有连接共享的热广播，没有需求的连接会丢弃事件而不会阻塞其他连接
+     */
+    private final Sinks.Many<LiveEvent> sink = Sinks.many().multicast().directBestEffort();
+    
+    /**
+     * 按公告语言记录最近一次广播的公告版本，相同版本不重复广播
+     */
+    private final Map<String, String> lastKeys = new ConcurrentHashMap<>();
+    
+    private final Disposable subscriptions;
+    
+    public JyfacLiveService(JyfacService jyfacService, JyfacBundleService bundleService) {
+        this.jyfacService = jyfacService;
+        this.bundleService = bundleService;
+        this.subscriptions = Disposables.composite(
+            jyfacService.updates().subscribe(this::publish,
+                e -> log.warn("Jyfac配置变更订阅异常", e)),
+            // 所有连接共用一个心跳计时器，没有连接时不发送
+            Flux.interval(HEARTBEAT_INTERVAL)
+                .filter(tick -> sink.currentSubscriberCount() > 0)
+                .subscribe(tick -> emit(HEARTBEAT))
+        );
+    }
+    
+    /**
+     * 订阅公告更新
+     * 页面持有的版本已过期时先补发一次当前版本
+     * 配置暂不可用时保持连接并发送心跳，配置可用后断开，由浏览器按重连间隔重新订阅
+     * @param key 页面当前的公告版本
+     * @param locale 页面的公告语言，默认内容为空字符串
+     * @return 更新事件流
+     */
+    public Flux<ServerSentEvent<String>> events(String key, String locale) {
+        return jyfacService.getSetting().flatMapMany(setting -> {
+            String validLocale = localeOf(setting, locale);
+            String channel = validLocale == null ? "" : validLocale;
+            Flux<ServerSentEvent<String>> initial = Mono.just(setting)
+                .filter(this::isLive)
+                .map(current -> bundleService.getRenderVariant(current, validLocale).bundle())
+                .filter(bundle -> !bundle.dismissKey().equals(key))
+                .map(JyfacLiveService::toEvent)
+                .flux();
+            // 慢连接只保留最新一条更新，不会积压
+            Flux<ServerSentEvent<String>> updates = sink.asFlux()
+                .filter(event -> event.locale() == null || event.locale().equals(channel))
+                .map(LiveEvent::event)
+                .onBackpressureLatest();
+            return Flux.merge(initial, updates);
+        }).switchIfEmpty(Flux.defer(this::awaitSetting));
+    }
+    
+    /**
+     * 配置不可用时无法确定页面的公告语言，只转发心跳
+     * 立即结束连接会让浏览器不断重连，首个更新事件到达后才结束连接
+     */
+    private Flux<ServerSentEvent<String>> awaitSetting() {
+        return sink.asFlux()
+            .takeWhile(event -> event.locale() == null)
+            .map(LiveEvent::event)
+            .onBackpressureLatest()
+            .startWith(UNAVAILABLE);
+    }
+    
+    /**
+     * 生效公告在窗口边界切换时推送新的公告内容
+     */
+    @EventListener(JyfacAnnouncementsChangedEvent.class)
+    public void onAnnouncementsChanged() {
+        JyfacSetting setting = jyfacService.peekSetting();
+        if (setting != null) {
+            publish(setting);
+        }
+    }
+    
+    private void publish(JyfacSetting setting) {
+        if (!isLive(setting) || sink.currentSubscriberCount() == 0) {
+            return;
+        }
+        publish(setting, "");
+        for (JyfacLocaleContent content : setting.localizedContents()) {
+            String locale = localeOf(setting, content.locale());
+            if (locale != null) {
+                publish(setting, locale);
+            }
+        }
+    }
+    
+    private void publish(JyfacSetting setting, String locale) {
+        JyfacRenderBundle bundle = bundleService.getBundle(setting, locale.isEmpty() ? null : locale);
+        String previous = lastKeys.put(locale, bundle.dismissKey());
+        if (!bundle.dismissKey().equals(previous)) {
+            emit(new LiveEvent(locale, toEvent(bundle)));
+        }
+    }
+    
+    /**
+     * 只接受设置中存在的语言，避免任意参数占用渲染包缓存
+     */
+    private static String localeOf(JyfacSetting setting, String locale) {
+        JyfacLocaleContent content = setting.localizedContent(locale);
+        return content == null ? null : content.locale().trim();
+    }
+    
+    private boolean isLive(JyfacSetting setting) {
+        return Boolean.TRUE.equals(setting.enabled()) && setting.livePush();
+    }
+    
+    private void emit(LiveEvent event) {
+        // 配置变更、公告切换和心跳来自不同线程，发射需要串行
+        synchronized (sink) {
+            sink.tryEmitNext(event);
+        }
+    }
+    
+    private static ServerSentEvent<String> toEvent(JyfacRenderBundle bundle) {
+        String data = JsonUtils.objectToJson(Map.of(
+            "key", bundle.dismissKey(),
+            "html", bundle.html()
+        ));
+        return ServerSentEvent.builder(data)
+            .id(bundle.dismissKey())
+            .event("update")
+            .retry(RETRY)
+            .build();
+    }
+    
+    /**
+     * 结束推送并断开所有页面的连接，插件停止时调用
+     */
+    public void dispose() {
+        subscriptions.dispose();
+        sink.tryEmitComplete();
+    }
+    
+    /**
+     * 带公告语言的推送事件，心跳事件的语言为null
+     */
+    private record LiveEvent(String locale, ServerSentEvent<String> event) {
+    }
+}
@@ -0,0 +1,17 @@
+package www.ppkok.com.jyfac;
+
+/**
+ * Jyfac插件多语言公告内容
+ * 
+ * @param locale 语言标签，如 en、en-US、zh-TW
+ * @param text 单行公告内容，为空时使用默认内容
+ * @param multiLineTexts 多行公告内容，为空时使用默认内容
+ * @author Jyf
+ * @since 1.2.2
+ */
+public record JyfacLocaleContent(
+        String locale,
+        String text,
+        String multiLineTexts
+) {
+}
@@ -0,0 +1,109 @@
+package www.ppkok.com.jyfac;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Jyfac插件公告语言选择器
+ * 由设置中的多语言内容一次性编译而成，相同的请求语言只解析一次，可在并发请求间共享
+ * 匹配顺序：完整语言标签、逐级截短的语言标签、相同语种，均不匹配时使用默认内容
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+final class JyfacLocaleResolver {
+    
+    static final JyfacLocaleResolver DEFAULT_ONLY = new JyfacLocaleResolver(List.of());
+    
+    /**
+     * 解析结果缓存上限，超出后整体清空
+     */
+    private static final int MAX_CACHED_SELECTIONS = 256;
+    
+    private final List<String> tags;
+    
+    /**
+     * 按主题语言和Accept-Language缓存的解析结果，使用默认内容时为空字符串
+     */
+    private final Map<String, String> selections = new ConcurrentHashMap<>();
+    
+    private JyfacLocaleResolver(List<String> tags) {
+        this.tags = tags;
+    }
+    
+    /**
+     * 编译多语言内容
+     * @param contents 多语言内容
+     * @return 语言选择器
+     */
+    static JyfacLocaleResolver compile(List<JyfacLocaleContent> contents) {
+        List<String> tags = new ArrayList<>();
+        for (JyfacLocaleContent content : contents) {
+            if (content.locale() != null && !content.locale().isBlank()) {
+                tags.add(content.locale().trim());
+            }
+        }
+        return tags.isEmpty() ? DEFAULT_ONLY : new JyfacLocaleResolver(List.copyOf(tags));
+    }
+    
+    /**
+     * 选择公告语言
+     * @param locale 主题语言，无法获取时为null
+     * @param acceptLanguage 请求的Accept-Language，无法获取时为null
+     * @return 设置中的语言标签，使用默认内容时为null
+     */
+    String resolve(Locale locale, String acceptLanguage) {
+        if (this == DEFAULT_ONLY) {
+            return null;
+        }
+        String key = (locale == null ? "" : locale.toLanguageTag()) + "|"
+            + (acceptLanguage == null ? "" : acceptLanguage);
+        String selection = selections.get(key);
+        if (selection == null) {
+            if (selections.size() >= MAX_CACHED_SELECTIONS) {
+                selections.clear();
+            }
+            selection = Optional.ofNullable(lookup(locale, acceptLanguage)).orElse("");
+            selections.put(key, selection);
+        }
+        return selection.isEmpty() ? null : selection;
+    }
+    
+    private String lookup(Locale locale, String acceptLanguage) {
+        List<Locale.LanguageRange> ranges = new ArrayList<>();
+        if (locale != null && !locale.getLanguage().isEmpty()) {
+            ranges.add(new Locale.LanguageRange(locale.toLanguageTag()));
+        }
+        if (acceptLanguage != null && !acceptLanguage.isBlank()) {
+            try {
+                for (Locale.LanguageRange range : Locale.LanguageRange.parse(acceptLanguage)) {
+                    if (!"*".equals(range.getRange())) {
+                        ranges.add(range);
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                // 无法解析的Accept-Language按未提供处理
+            }
+        }
+        String tag = Locale.lookupTag(ranges, tags);
+        if (tag != null) {
+            return tag;
+        }
+        for (Locale.LanguageRange range : ranges) {
+            String language = Locale.forLanguageTag(range.getRange()).getLanguage();
+            if (language.isEmpty()) {
+                continue;
+            }
+            for (String candidate : tags) {
+                if (Locale.forLanguageTag(candidate).getLanguage().equals(language)) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,203 @@
+package www.ppkok.com.jyfac;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Jyfac插件公告内容渲染工具
+ * 支持行内Markdown（粗体、斜体、行内代码、链接）和少量安全的HTML标签，其余内容一律转义
+ * 在编译渲染包时对每行公告执行一次，输出的片段可直接拼接到公告HTML中
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+final class JyfacMarkdown {
+    
+    /**
+     * 允许保留的HTML标签，除a标签外均不保留任何属性
+     */
+    private static final Set<String> ALLOWED_TAGS =
+        Set.of("a", "b", "strong", "i", "em", "u", "s", "del", "code", "small", "mark", "br");
+    
+    /**
+     * HTML标签，行内代码一并匹配，代码中的标签按文本处理
+     */
+    private static final Pattern TAG =
+        Pattern.compile("`[^`]+`|<(/?)([a-zA-Z][a-zA-Z0-9]*)((?:\\s[^<>]*)?)/?>");
+    
+    private static final Pattern ENTITY = Pattern.compile("&(?:#|[a-zA-Z0-9]+;)");
+    
+    private static final Pattern ATTRIBUTE =
+        Pattern.compile("([a-zA-Z][a-zA-Z-]*)\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s\"'>]+))");
+    
+    private static final Pattern INLINE = Pattern.compile(
+        "`([^`]+)`|\\*\\*(.+?)\\*\\*|\\*([^*\\s][^*]*)\\*|\\[([^\\]]+)]\\(([^)\\s]+)\\)");
+    
+    private static final Pattern SCHEME = Pattern.compile("^([a-zA-Z][a-zA-Z0-9+.-]*):");
+    
+    private static final Set<String> ALLOWED_SCHEMES = Set.of("http", "https", "mailto", "tel");
+    
+    private JyfacMarkdown() {
+    }
+    
+    /**
+     * 渲染一行公告内容
+     * @param source 公告内容
+     * @return 安全的HTML片段
+     */
+    static String render(String source) {
+        if (source == null || source.isEmpty()) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(source.length() + 16);
+        Deque<String> open = new ArrayDeque<>();
+        Matcher tag = TAG.matcher(source);
+        int position = 0;
+        while (tag.find()) {
+            inline(source.substring(position, tag.start()), out);
+            position = tag.end();
+            if (tag.group(2) == null) {
+                inline(tag.group(), out);
+                continue;
+            }
+            String name = tag.group(2).toLowerCase(Locale.ROOT);
+            if (!ALLOWED_TAGS.contains(name)) {
+                escape(tag.group(), out);
+            } else if ("br".equals(name)) {
+                out.append("<br>");
+            } else if (tag.group(1).isEmpty()) {
+                openTag(name, tag.group(3), out);
+                open.push(name);
+            } else if (open.contains(name)) {
+                // 关闭标签之前先补全内层未关闭的标签，保证输出始终配对
+                String closing;
+                do {
+                    closing = open.pop();
+                    out.append("</").append(closing).append('>');
+                } while (!closing.equals(name));
+            }
+        }
+        inline(source.substring(position), out);
+        while (!open.isEmpty()) {
+            out.append("</").append(open.pop()).append('>');
+        }
+        return out.toString();
+    }
+    
+    private static void openTag(String name, String attributes, StringBuilder out) {
+        out.append('<').append(name);
+        if ("a".equals(name)) {
+            Matcher attribute = ATTRIBUTE.matcher(attributes);
+            String href = null;
+            String title = null;
+            boolean blank = false;
+            while (attribute.find()) {
+                String value = attribute.group(2) != null ? attribute.group(2)
+                    : attribute.group(3) != null ? attribute.group(3) : attribute.group(4);
+                switch (attribute.group(1).toLowerCase(Locale.ROOT)) {
+                    case "href" -> href = value;
+                    case "title" -> title = value;
+                    case "target" -> blank = "_blank".equals(value);
+                    default -> {
+                    }
+                }
+            }
+            // 属性值中的实体编码可能隐藏协议，除&amp;外含有实体编码的地址一律丢弃
+            if (href != null) {
+                href = href.replace("&amp;", "&");
+            }
+            if (href != null && !ENTITY.matcher(href).find() && isSafeUrl(href)) {
+                out.append(" href=\"");
+                escape(href, out);
+                out.append('"');
+            }
+            if (title != null) {
+                out.append(" title=\"");
+                escape(title, out);
+                out.append('"');
+            }
+            if (blank) {
+                out.append(" target=\"_blank\" rel=\"noopener noreferrer\"");
+            }
+        }
+        out.append('>');
+    }
+    
+    /**
+     * 转义文本并渲染行内Markdown
+     */
+    private static void inline(String text, StringBuilder out) {
+        Matcher matcher = INLINE.matcher(text);
+        int position = 0;
+        while (matcher.find()) {
+            escape(text.substring(position, matcher.start()), out);
+            position = matcher.end();
+            if (matcher.group(1) != null) {
+                out.append("<code>");
+                escape(matcher.group(1), out);
+                out.append("</code>");
+            } else if (matcher.group(2) != null) {
+                out.append("<strong>");
+                inline(matcher.group(2), out);
+                out.append("</strong>");
+            } else if (matcher.group(3) != null) {
+                out.append("<em>");
+                inline(matcher.group(3), out);
+                out.append("</em>");
+            } else if (isSafeUrl(matcher.group(5))) {
+                out.append("<a href=\"");
+                escape(matcher.group(5), out);
+                out.append("\">");
+                inline(matcher.group(4), out);
+                out.append("</a>");
+            } else {
+                inline(matcher.group(4), out);
+            }
+        }
+        escape(text.substring(position), out);
+    }
+    
+    /**
+     * 只允许相对地址和常见协议，拒绝javascript:、data:等可执行内容的协议
+     */
+    private static boolean isSafeUrl(String url) {
+        String trimmed = url.trim();
+        if (trimmed.isEmpty() || trimmed.chars().anyMatch(c -> c < 0x20)) {
+            return false;
+        }
+        Matcher scheme = SCHEME.matcher(trimmed);
+        if (scheme.find()) {
+            return ALLOWED_SCHEMES.contains(scheme.group(1).toLowerCase(Locale.ROOT));
+        }
+        // 没有协议的地址中冒号只能出现在路径、查询或片段之后
+        int colon = trimmed.indexOf(':');
+        return colon < 0 || indexOfAny(trimmed, "/?#") < colon;
+    }
+    
+    private static int indexOfAny(String text, String chars) {
+        for (int i = 0; i < text.length(); i++) {
+            if (chars.indexOf(text.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+    
+    private static void escape(String text, StringBuilder out) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
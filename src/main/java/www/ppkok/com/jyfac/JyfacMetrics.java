@@ -0,0 +1,166 @@
+package www.ppkok.com.jyfac;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Jyfac插件指标
+ * 记录配置获取、渲染包编译和页面注入的耗时与次数
+ * 页面渲染路径上的指标只在开启监控指标时记录，关闭时仅多一次布尔判断
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+@Component
+public class JyfacMetrics {
+    
+    private final MeterRegistry registry;
+    
+    private final Timer settingsFetchTimer;
+    
+    private final Timer bundleCompileTimer;
+    
+    private final Timer renderTimer;
+    
+    private final DistributionSummary injectedBytes;
+    
+    private final Counter cacheHits;
+    
+    private final Counter cacheMisses;
+    
+    private final Counter settingsTimeouts;
+    
+    /**
+     * 按结果缓存的页面渲染计数器
+     */
+    private final Map<String, Counter> renderCounters = new ConcurrentHashMap<>();
+    
+    @Autowired
+    public JyfacMetrics(ObjectProvider<MeterRegistry> registryProvider) {
+        // 插件上下文中没有注册表时使用全局注册表，Spring Boot默认会把应用注册表加入其中
+        this(registryProvider.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+    
+    public JyfacMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.settingsFetchTimer = Timer.builder("jyfac.settings.fetch")
+            .description("合并读取插件配置的耗时")
+            .register(registry);
+        this.bundleCompileTimer = Timer.builder("jyfac.bundle.compile")
+            .description("编译渲染包的耗时")
+            .register(registry);
+        this.renderTimer = Timer.builder("jyfac.render")
+            .description("每次页面渲染中插件注入的耗时")
+            .register(registry);
+        this.injectedBytes = DistributionSummary.builder("jyfac.render.injected")
+            .description("每次页面渲染注入的字节数")
+            .baseUnit("bytes")
+            .register(registry);
+        this.cacheHits = Counter.builder("jyfac.bundle.cache")
+            .tag("result", "hit")
+            .register(registry);
+        this.cacheMisses = Counter.builder("jyfac.bundle.cache")
+            .tag("result", "miss")
+            .register(registry);
+        this.settingsTimeouts = Counter.builder("jyfac.settings.timeout")
+            .description("页面渲染等待配置超时而跳过注入的次数")
+            .register(registry);
+    }
+    
+    /**
+     * 判断页面渲染路径是否需要计时
+     * @param setting 插件设置
+     * @return 开启监控指标或Server-Timing时返回true
+     */
+    public boolean isObserved(JyfacSetting setting) {
+        return setting.metricsEnabled() || setting.serverTiming();
+    }
+    
+    /**
+     * 记录一次配置获取
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordSettingsFetch(long nanos) {
+        settingsFetchTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * 记录一次页面渲染等待配置超时
+     */
+    public void recordSettingsTimeout() {
+        settingsTimeouts.increment();
+    }
+    
+    /**
+     * 记录一次渲染包编译
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordBundleCompile(long nanos) {
+        bundleCompileTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * 记录渲染包缓存命中情况
+     * @param setting 插件设置
+     * @param hit 是否命中
+     */
+    public void recordBundleCache(JyfacSetting setting, boolean hit) {
+        if (setting.metricsEnabled()) {
+            (hit ? cacheHits : cacheMisses).increment();
+        }
+    }
+    
+    /**
+     * 记录一次完成注入的页面渲染
+     * @param setting 插件设置
+     * @param bytes 注入的字节数
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordInjected(JyfacSetting setting, int bytes, long nanos) {
+        if (setting.metricsEnabled()) {
+            renderCounter("injected").increment();
+            injectedBytes.record(bytes);
+            renderTimer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    /**
+     * 记录一次跳过注入的页面渲染
+     * @param setting 插件设置
+     * @param reason 跳过原因，如 disabled、route、bot
+     */
+    public void recordSkipped(JyfacSetting setting, String reason) {
+        if (setting.metricsEnabled()) {
+            renderCounter(reason).increment();
+        }
+    }
+    
+    /**
+     * 从注册表中移除本插件的全部指标，插件停止时调用
+     */
+    public void close() {
+        for (Meter meter : List.of(settingsFetchTimer, bundleCompileTimer, renderTimer,
+            injectedBytes, cacheHits, cacheMisses, settingsTimeouts)) {
+            registry.remove(meter);
+        }
+        renderCounters.values().forEach(registry::remove);
+        renderCounters.clear();
+    }
+    
+    private Counter renderCounter(String result) {
+        return renderCounters.computeIfAbsent(result, key -> Counter.builder("jyfac.render.requests")
+            .tag("result", key)
+            .register(registry));
+    }
+}
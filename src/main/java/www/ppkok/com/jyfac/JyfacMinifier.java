@@ -0,0 +1,382 @@
+package www.ppkok.com.jyfac;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Jyfac插件内容压缩工具
+ * 在编译渲染包时对生成的CSS、JS和HTML做一次性压缩，不改写标识符，只去除注释和多余空白
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+final class JyfacMinifier {
+    
+    private JyfacMinifier() {
+    }
+    
+    /**
+     * 压缩CSS
+     * 去除注释和空白，并合并相邻的同选择器或同声明规则
+     * @param source CSS源码
+     * @return 压缩后的CSS
+     */
+    static String css(String source) {
+        String compact = compactCss(source);
+        List<CssNode> nodes = new ArrayList<>();
+        parseCss(compact, 0, compact.length(), nodes);
+        StringBuilder out = new StringBuilder(compact.length());
+        writeCss(mergeRules(nodes), out);
+        return out.toString();
+    }
+    
+    /**
+     * 压缩JavaScript
+     * 保留字符串、模板字符串和正则字面量，去除注释和不影响语义的空白
+     * 可能触发自动分号插入的换行会被保留
+     * @param source JavaScript源码
+     * @return 压缩后的JavaScript
+     */
+    static String js(String source) {
+        StringBuilder out = new StringBuilder(source.length());
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+            char c = source.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                i = copyQuoted(source, i, c, out);
+            } else if (Character.isWhitespace(c) || isJsComment(source, i)) {
+                // 连续的空白和注释按一段空白处理，注释中的换行同样可能触发自动分号插入
+                boolean newline = false;
+                while (i < length) {
+                    char next = source.charAt(i);
+                    if (Character.isWhitespace(next)) {
+                        newline |= next == '\n';
+                        i++;
+                    } else if (isLineComment(source, i)) {
+                        while (i < length && source.charAt(i) != '\n') {
+                            i++;
+                        }
+                    } else if (isJsComment(source, i)) {
+                        int end = source.indexOf("*/", i + 2);
+                        int stop = end < 0 ? length : end + 2;
+                        int lineBreak = source.indexOf('\n', i);
+                        newline |= lineBreak >= 0 && lineBreak < stop;
+                        i = stop;
+                    } else {
+                        break;
+                    }
+                }
+                i = writeJsWhitespace(source, i, newline, out);
+            } else if (c == '/' && isRegexAllowed(out)) {
+                i = copyRegex(source, i, out);
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+    
+    /**
+     * 压缩HTML片段
+     * 去除标签之间跨行的缩进，其余连续空白合并为一个空格
+     * @param source HTML源码
+     * @return 压缩后的HTML
+     */
+    static String html(String source) {
+        StringBuilder out = new StringBuilder(source.length());
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+            char c = source.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                out.append(c);
+                i++;
+                continue;
+            }
+            boolean newline = false;
+            int start = i;
+            while (i < length && Character.isWhitespace(source.charAt(i))) {
+                newline |= source.charAt(i) == '\n';
+                i++;
+            }
+            boolean betweenTags = (start == 0 || source.charAt(start - 1) == '>')
+                && (i == length || source.charAt(i) == '<');
+            if (!(newline && betweenTags) && start > 0 && i < length) {
+                out.append(' ');
+            }
+        }
+        return out.toString();
+    }
+    
+    private static int writeJsWhitespace(String source, int next, boolean newline, StringBuilder out) {
+        if (out.isEmpty() || next >= source.length()) {
+            return next;
+        }
+        char previous = lastSignificant(out);
+        char following = source.charAt(next);
+        if (isIdentifierPart(previous) && isIdentifierPart(following)) {
+            out.append(newline ? '\n' : ' ');
+        } else if ((previous == '+' || previous == '-') && previous == following) {
+            out.append(' ');
+        } else if (newline && out.charAt(out.length() - 1) != '\n'
+            && "{;,(=:[!&|?+-*%<>".indexOf(previous) < 0
+            && ")]};,.:?=&|".indexOf(following) < 0) {
+            // 可能触发自动分号插入，保留换行
+            out.append('\n');
+        }
+        return next;
+    }
+    
+    /**
+     * 是否为单行或多行注释的开头，注释不可能是正则字面量的开头
+     */
+    private static boolean isJsComment(String source, int i) {
+        return source.charAt(i) == '/' && i + 1 < source.length()
+            && (source.charAt(i + 1) == '/' || source.charAt(i + 1) == '*');
+    }
+    
+    /**
+     * 是否为单行注释的开头，源码以斜杠结尾时不越界
+     */
+    private static boolean isLineComment(String source, int i) {
+        return source.charAt(i) == '/' && i + 1 < source.length() && source.charAt(i + 1) == '/';
+    }
+    
+    private static int copyQuoted(String source, int start, char quote, StringBuilder out) {
+        int i = start;
+        out.append(source.charAt(i++));
+        while (i < source.length()) {
+            char c = source.charAt(i++);
+            out.append(c);
+            if (c == '\\' && i < source.length()) {
+                out.append(source.charAt(i++));
+            } else if (c == quote) {
+                break;
+            }
+        }
+        return i;
+    }
+    
+    private static int copyRegex(String source, int start, StringBuilder out) {
+        int i = start;
+        out.append(source.charAt(i++));
+        boolean inClass = false;
+        while (i < source.length()) {
+            char c = source.charAt(i++);
+            out.append(c);
+            if (c == '\\' && i < source.length()) {
+                out.append(source.charAt(i++));
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == ']') {
+                inClass = false;
+            } else if (c == '/' && !inClass) {
+                break;
+            }
+        }
+        while (i < source.length() && isIdentifierPart(source.charAt(i))) {
+            out.append(source.charAt(i++));
+        }
+        return i;
+    }
+    
+    private static boolean isRegexAllowed(StringBuilder out) {
+        if (out.isEmpty()) {
+            return true;
+        }
+        char previous = lastSignificant(out);
+        if ("(,=:[!&|?{};+-*%<>~^".indexOf(previous) >= 0) {
+            return true;
+        }
+        int end = out.length();
+        while (end > 0 && Character.isWhitespace(out.charAt(end - 1))) {
+            end--;
+        }
+        int start = end;
+        while (start > 0 && isIdentifierPart(out.charAt(start - 1))) {
+            start--;
+        }
+        String word = out.substring(start, end);
+        return word.equals("return") || word.equals("typeof") || word.equals("case")
+            || word.equals("in") || word.equals("of") || word.equals("void");
+    }
+    
+    private static char lastSignificant(StringBuilder out) {
+        for (int i = out.length() - 1; i >= 0; i--) {
+            char c = out.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c;
+            }
+        }
+        return 0;
+    }
+    
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c > 127;
+    }
+    
+    /**
+     * 去除CSS注释和多余空白
+     */
+    private static String compactCss(String source) {
+        StringBuilder out = new StringBuilder(source.length());
+        int length = source.length();
+        int i = 0;
+        boolean pendingSpace = false;
+        while (i < length) {
+            char c = source.charAt(i);
+            if (c == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+                int end = source.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                pendingSpace = true;
+            } else if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                i++;
+            } else {
+                // 冒号前的空格在选择器中有意义（如 "a :hover"），只去除冒号后的空格
+                if (pendingSpace && !out.isEmpty()
+                    && "{};,>".indexOf(c) < 0
+                    && "{};:,>(".indexOf(out.charAt(out.length() - 1)) < 0) {
+                    out.append(' ');
+                }
+                pendingSpace = false;
+                if (c == '\'' || c == '"') {
+                    i = copyQuoted(source, i, c, out);
+                    continue;
+                }
+                if (c == '}' && !out.isEmpty() && out.charAt(out.length() - 1) == ';') {
+                    out.setLength(out.length() - 1);
+                }
+                out.append(c);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+    
+    /**
+     * 将压缩后的CSS解析为规则和分组块
+     */
+    private static void parseCss(String css, int from, int to, List<CssNode> nodes) {
+        int i = from;
+        while (i < to) {
+            int brace = indexOfOutsideQuotes(css, '{', i, to);
+            int semicolon = indexOfOutsideQuotes(css, ';', i, to);
+            if (brace < 0 || (semicolon >= 0 && semicolon < brace)) {
+                int end = semicolon < 0 ? to : semicolon + 1;
+                nodes.add(new CssNode(css.substring(i, end), null, null));
+                i = end;
+                continue;
+            }
+            String prelude = css.substring(i, brace);
+            int close = matchingBrace(css, brace, to);
+            if (prelude.startsWith("@media") || prelude.startsWith("@supports")) {
+                List<CssNode> children = new ArrayList<>();
+                parseCss(css, brace + 1, close, children);
+                nodes.add(new CssNode(prelude, null, children));
+            } else {
+                nodes.add(new CssNode(prelude, css.substring(brace + 1, close), null));
+            }
+            i = close + 1;
+        }
+    }
+    
+    /**
+     * 合并相邻的同选择器规则和同声明规则
+     * 只合并相邻规则，不改变层叠顺序
+     */
+    private static List<CssNode> mergeRules(List<CssNode> nodes) {
+        List<CssNode> merged = new ArrayList<>(nodes.size());
+        for (CssNode node : nodes) {
+            if (node.children() != null) {
+                node = new CssNode(node.prelude(), null, mergeRules(node.children()));
+            }
+            CssNode last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && node.isRule() && last.isRule() && !node.prelude().startsWith("@")
+                && !last.prelude().startsWith("@")) {
+                if (last.prelude().equals(node.prelude())) {
+                    merged.set(merged.size() - 1,
+                        new CssNode(last.prelude(), last.body() + ";" + node.body(), null));
+                    continue;
+                }
+                if (last.body().equals(node.body())) {
+                    merged.set(merged.size() - 1,
+                        new CssNode(last.prelude() + "," + node.prelude(), last.body(), null));
+                    continue;
+                }
+            }
+            merged.add(node);
+        }
+        return merged;
+    }
+    
+    private static void writeCss(List<CssNode> nodes, StringBuilder out) {
+        for (CssNode node : nodes) {
+            if (node.children() != null) {
+                out.append(node.prelude()).append('{');
+                writeCss(node.children(), out);
+                out.append('}');
+            } else if (node.body() != null) {
+                out.append(node.prelude()).append('{').append(node.body()).append('}');
+            } else {
+                out.append(node.prelude());
+            }
+        }
+    }
+    
+    private static int indexOfOutsideQuotes(String css, char target, int from, int to) {
+        char quote = 0;
+        for (int i = from; i < to; i++) {
+            char c = css.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private static int matchingBrace(String css, int open, int to) {
+        int depth = 0;
+        char quote = 0;
+        for (int i = open; i < to; i++) {
+            char c = css.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                return i;
+            }
+        }
+        return to - 1;
+    }
+    
+    /**
+     * CSS语法节点
+     * @param prelude 选择器、@规则前缀或独立语句
+     * @param body 普通规则的声明，分组块和独立语句为null
+     * @param children 分组块内的子节点，其他节点为null
+     */
+    private record CssNode(String prelude, String body, List<CssNode> children) {
+        
+        boolean isRule() {
+            return body != null;
+        }
+    }
+}
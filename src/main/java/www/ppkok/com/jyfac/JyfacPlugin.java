@@ -1,6 +1,8 @@
 package www.ppkok.com.jyfac;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import run.halo.app.extension.SchemeManager;
 import run.halo.app.plugin.BasePlugin;
 import run.halo.app.plugin.PluginContext;
 
@@ -12,20 +14,34 @@ import run.halo.app.plugin.PluginContext;
  * @author Jyf
  * @since 1.0.0
  */
+@Slf4j
 @Component
 public class JyfacPlugin extends BasePlugin {
 
-    public JyfacPlugin(PluginContext pluginContext) {
+    private final SchemeManager schemeManager;
+
+    private final JyfacLifecycle lifecycle;
+
+    public JyfacPlugin(PluginContext pluginContext, SchemeManager schemeManager,
+                       JyfacLifecycle lifecycle) {
         super(pluginContext);
+        this.schemeManager = schemeManager;
+        this.lifecycle = lifecycle;
     }
 
     @Override
     public void start() {
-        System.out.println("插件启动成功！");
+        schemeManager.register(Announcement.class);
+        schemeManager.register(AnnouncementStat.class);
+        lifecycle.start();
+        log.info("插件启动成功！");
     }
 
     @Override
     public void stop() {
-        System.out.println("插件停止！");
+        lifecycle.stop();
+        schemeManager.unregister(schemeManager.get(AnnouncementStat.class));
+        schemeManager.unregister(schemeManager.get(Announcement.class));
+        log.info("插件停止！");
     }
 }
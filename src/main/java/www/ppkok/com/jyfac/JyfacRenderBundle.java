@@ -0,0 +1,86 @@
+package www.ppkok.com.jyfac;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Jyfac插件渲染包
+ * 由同一份配置一次性生成的CSS、JS和HTML内容，配置不变时在所有请求间共享
+ * 
+ * @param hash 内容哈希，用于区分不同版本的渲染包
+ * @param dismissKey 关闭记录标识，即公告HTML的内容哈希
+ * @param iconHash 外部SVG图标的内容哈希，图标内联时为空字符串
+ * @param css 内联模式下的完整CSS，即静态规则加变量块
+ * @param js JavaScript代码
+ * @param html 公告HTML结构
+ * @param htmlScript 将HTML结构插入页面的脚本
+ * @param assetJs 外部资源模式下的完整脚本文件内容
+ * @param headTags 外部资源模式下注入头部的标签
+ * @param footerHeadTags 页脚直出模式下注入头部的标签
+ * @param bootstrapTags 引导模式下注入头部的内联引导脚本
+ * @param assets 按扩展名（css、js、runtime.js、html、svg）索引的预压缩资源，其中css只包含变量块
+ * @param injectedBytes 按注入方式索引的每页注入字节数
+ * @author Jyf
+ * @since 1.2.2
+ */
+public record JyfacRenderBundle(
+        String hash,
+        String dismissKey,
+        String iconHash,
+        String css,
+        String js,
+        String html,
+        String htmlScript,
+        String assetJs,
+        String headTags,
+        String footerHeadTags,
+        String bootstrapTags,
+        Map<String, JyfacEncodedAsset> assets,
+        Map<String, Integer> injectedBytes
+) {
+    
+    /**
+     * 渲染包静态资源的访问路径前缀
+     */
+    public static final String ASSET_PATH = "/plugins/jyfac/assets/bundle/";
+    
+    /**
+     * 获取渲染包静态资源地址
+     * @param hash 内容哈希
+     * @param extension 文件扩展名
+     * @return 带内容哈希的资源地址
+     */
+    public static String assetUrl(String hash, String extension) {
+        return ASSET_PATH + "capsule." + hash + "." + extension;
+    }
+    
+    /**
+     * 获取指定注入方式下每页注入的字节数
+     * @param injectMode 注入方式
+     * @return 字节数
+     */
+    public int injectedBytes(String injectMode) {
+        return injectedBytes.getOrDefault(injectMode, 0);
+    }
+    
+    /**
+     * 计算内容哈希
+     * @param parts 参与计算的内容
+     * @return SHA-256摘要的前16位十六进制字符
+     */
+    public static String contentHash(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package www.ppkok.com.jyfac;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import org.springframework.web.util.pattern.PatternParseException;
+
+/**
+ * Jyfac插件页面路径匹配器
+ * 由设置中的包含、排除路径规则一次性编译而成，不可变，可在并发请求间共享
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+@Slf4j
+final class JyfacRouteMatcher {
+    
+    static final JyfacRouteMatcher MATCH_ALL = new JyfacRouteMatcher(List.of(), List.of());
+    
+    private final List<PathPattern> includes;
+    
+    private final List<PathPattern> excludes;
+    
+    private JyfacRouteMatcher(List<PathPattern> includes, List<PathPattern> excludes) {
+        this.includes = includes;
+        this.excludes = excludes;
+    }
+    
+    /**
+     * 编译路径规则
+     * @param includePaths 包含路径，每行一条，为空表示所有页面
+     * @param excludePaths 排除路径，每行一条
+     * @return 路径匹配器
+     */
+    static JyfacRouteMatcher compile(String includePaths, String excludePaths) {
+        List<PathPattern> includes = parse(includePaths);
+        List<PathPattern> excludes = parse(excludePaths);
+        if (includes.isEmpty() && excludes.isEmpty()) {
+            return MATCH_ALL;
+        }
+        return new JyfacRouteMatcher(includes, excludes);
+    }
+    
+    /**
+     * 判断页面是否需要注入
+     * @param path 请求路径，无法获取时为null
+     * @return 是否需要注入
+     */
+    boolean matches(String path) {
+        if (this == MATCH_ALL || path == null) {
+            return true;
+        }
+        PathContainer container = PathContainer.parsePath(path);
+        for (PathPattern exclude : excludes) {
+            if (exclude.matches(container)) {
+                return false;
+            }
+        }
+        if (includes.isEmpty()) {
+            return true;
+        }
+        for (PathPattern include : includes) {
+            if (include.matches(container)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static List<PathPattern> parse(String paths) {
+        if (paths == null || paths.isBlank()) {
+            return List.of();
+        }
+        List<PathPattern> patterns = new ArrayList<>();
+        for (String line : paths.split("\n")) {
+            String pattern = line.trim();
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            try {
+                patterns.add(PathPatternParser.defaultInstance.parse(pattern));
+            } catch (PatternParseException e) {
+                log.warn("忽略无效的路径规则: {}", pattern);
+            }
+        }
+        return List.copyOf(patterns);
+    }
+}
@@ -0,0 +1,51 @@
+package www.ppkok.com.jyfac;
+
+import java.util.Locale;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import run.halo.app.security.AdditionalWebFilter;
+
+/**
+ * Jyfac插件Server-Timing过滤器
+ * 开启后在页面响应中输出 Server-Timing: jyfac;dur=…，便于在浏览器开发者工具中查看插件耗时
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+@Component
+@RequiredArgsConstructor
+public class JyfacServerTimingFilter implements AdditionalWebFilter {
+    
+    /**
+     * 记录注入耗时（纳秒）的请求属性名
+     */
+    static final String DURATION_ATTRIBUTE = JyfacServerTimingFilter.class.getName() + ".duration";
+    
+    private final JyfacService jyfacService;
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        // 未开启时直接放行，不为请求注册任何回调
+        JyfacSetting setting = jyfacService.peekSetting();
+        if (setting == null || !setting.serverTiming()) {
+            return chain.filter(exchange);
+        }
+        exchange.getResponse().beforeCommit(() -> {
+            if (exchange.getAttribute(DURATION_ATTRIBUTE) instanceof Long nanos) {
+                exchange.getResponse().getHeaders().add("Server-Timing",
+                    String.format(Locale.ROOT, "jyfac;dur=%.3f", nanos / 1_000_000d));
+            }
+            return Mono.empty();
+        });
+        return chain.filter(exchange);
+    }
+    
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
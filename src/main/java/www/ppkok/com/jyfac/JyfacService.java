@@ -1,8 +1,16 @@
 package www.ppkok.com.jyfac;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import run.halo.app.plugin.PluginConfigUpdatedEvent;
 import run.halo.app.plugin.ReactiveSettingFetcher;
 
 /**
@@ -12,29 +20,81 @@ import run.halo.app.plugin.ReactiveSettingFetcher;
  * @author Jyf
  * @since 1.0.0
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class JyfacService {
     
+    /**
+     * 页面渲染等待配置的时间上限
+     */
+    static final Duration RENDER_BUDGET = Duration.ofMillis(200);
+    
+    /**
+     * 后台读取配置的时间上限，超时后保留原有快照
+     */
+    static final Duration FETCH_TIMEOUT = Duration.ofSeconds(10);
+    
     private final ReactiveSettingFetcher settingFetcher;
     
+    private final JyfacMetrics metrics;
+    
+    /**
+     * 当前生效的配置快照
+     * 不可变对象，配置变更时整体原子替换，所有并发渲染共享同一份
+     */
+    private final AtomicReference<JyfacSetting> snapshot = new AtomicReference<>();
+    
+    /**
+     * 刷新代数，插件停止后进行中的刷新不会再写入快照
+     */
+    private final AtomicLong generation = new AtomicLong();
+    
+    /**
+     * 快照变更通知，只推送给当前订阅者，不缓存历史
+     */
+    private final Sinks.Many<JyfacSetting> updates = Sinks.many().multicast().directBestEffort();
+    
+    /**
+     * 进行中的刷新，所有等待者共享同一个结果
+     */
+    private Sinks.One<JyfacSetting> inflight;
+    
+    /**
+     * 进行中的刷新结束后需要再执行的刷新
+     */
+    private Sinks.One<JyfacSetting> queued;
+    
     /**
      * 获取完整的Jyfac插件配置
+     * 任一分组读取失败时返回错误，不使用默认配置代替，由调用方决定是否保留原有快照
      * 
      * @return 完整配置的Mono对象
      */
     public Mono<JyfacSetting> getCompleteSetting() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return fetchCompleteSetting()
+                .doOnTerminate(() -> metrics.recordSettingsFetch(System.nanoTime() - start));
+        });
+    }
+    
+    private Mono<JyfacSetting> fetchCompleteSetting() {
         return Mono.zip(
-                settingFetcher.fetch("basic", JyfacSetting.class).onErrorReturn(JyfacSetting.defaultSetting()),
-                settingFetcher.fetch("content", JyfacSetting.class).onErrorReturn(JyfacSetting.defaultSetting()),
-                settingFetcher.fetch("content-style", JyfacSetting.class).onErrorReturn(JyfacSetting.defaultSetting()),
-                settingFetcher.fetch("icon-style", JyfacSetting.class).onErrorReturn(JyfacSetting.defaultSetting())
+                settingFetcher.fetch("basic", JyfacSetting.class),
+                settingFetcher.fetch("content", JyfacSetting.class),
+                settingFetcher.fetch("content-style", JyfacSetting.class),
+                settingFetcher.fetch("icon-style", JyfacSetting.class),
+                // 旧版本升级后的配置中没有高级设置分组，缺省时使用默认值
+                settingFetcher.fetch("advanced", JyfacSetting.class)
+                    .defaultIfEmpty(JyfacSetting.defaultSetting())
             )
             .map(tuple -> {
                 var basic = tuple.getT1();
                 var content = tuple.getT2();
                 var contentStyle = tuple.getT3();
                 var iconStyle = tuple.getT4();
+                var advanced = tuple.getT5();
                 
                 // 合并所有配置组的设置
                 return new JyfacSetting(
@@ -55,10 +115,158 @@ public class JyfacService {
                     contentStyle.backgroundColor(),
                     contentStyle.textColor(),
                     contentStyle.borderRadius(),
-                    contentStyle.zIndex()
+                    contentStyle.zIndex(),
+                    basic.injectMode(),
+                    advanced.metricsEnabled(),
+                    advanced.serverTiming(),
+                    advanced.includePaths(),
+                    advanced.excludePaths(),
+                    advanced.livePush(),
+                    iconStyle.iconDelivery(),
+                    content.localizedContents(),
+                    advanced.analytics(),
+                    advanced.botBypass(),
+                    advanced.botUserAgents(),
+                    advanced.prefetchBypass()
                 );
-            })
-            .onErrorReturn(JyfacSetting.defaultSetting());
+            });
+    }
+    
+    /**
+     * 获取当前配置快照
+     * 仅首次调用时读取配置，之后直接返回内存中的快照，直到配置变更
+     * 尚无快照时最多等待 {@link #RENDER_BUDGET}，超时返回空结果，由后台刷新继续填充快照
+     * 
+     * @return 配置快照的Mono对象
+     */
+    public Mono<JyfacSetting> getSetting() {
+        return Mono.defer(() -> {
+            JyfacSetting current = snapshot.get();
+            if (current != null) {
+                return Mono.just(current);
+            }
+            return startRefresh(false).asMono()
+                .timeout(RENDER_BUDGET, Mono.fromRunnable(metrics::recordSettingsTimeout));
+        });
+    }
+    
+    /**
+     * 重新读取配置并替换快照
+     * 同一时间只有一个读取在进行，进行中的读取可能读到旧配置，因此完成后会再读取一次
+     * 读取超时或失败时保留原有快照
+     * 
+     * @return 最新配置的Mono对象，读取超时或失败时为空
+     */
+    public Mono<JyfacSetting> refresh() {
+        return Mono.defer(() -> startRefresh(true).asMono());
+    }
+    
+    /**
+     * 发起或加入后台刷新
+     * @param fresh 是否需要读取到调用之后的配置
+     */
+    private synchronized Sinks.One<JyfacSetting> startRefresh(boolean fresh) {
+        if (inflight != null) {
+            if (!fresh) {
+                return inflight;
+            }
+            if (queued == null) {
+                queued = Sinks.one();
+            }
+            return queued;
+        }
+        Sinks.One<JyfacSetting> result = Sinks.one();
+        inflight = result;
+        fetch(result);
+        return result;
+    }
+    
+    private void fetch(Sinks.One<JyfacSetting> result) {
+        long current = generation.get();
+        getCompleteSetting()
+            .timeout(FETCH_TIMEOUT)
+            .doFinally(signal -> fetchNext())
+            .subscribe(setting -> {
+                if (generation.get() == current) {
+                    JyfacSetting previous = snapshot.getAndSet(setting);
+                    if (!setting.equals(previous)) {
+                        notifyUpdated(setting);
+                    }
+                }
+                result.tryEmitValue(setting);
+            }, e -> {
+                log.warn("读取Jyfac插件配置失败，继续使用原有快照", e);
+                result.tryEmitEmpty();
+            }, result::tryEmitEmpty);
+    }
+    
+    private void fetchNext() {
+        Sinks.One<JyfacSetting> next;
+        synchronized (this) {
+            next = queued;
+            queued = null;
+            inflight = next;
+        }
+        if (next != null) {
+            fetch(next);
+        }
+    }
+    
+    /**
+     * 订阅配置快照变更
+     * 
+     * @return 变更后的配置快照
+     */
+    public Flux<JyfacSetting> updates() {
+        return updates.asFlux();
+    }
+    
+    private void notifyUpdated(JyfacSetting setting) {
+        // 并发刷新可能同时完成，发射需要串行
+        synchronized (updates) {
+            updates.tryEmitNext(setting);
+        }
+    }
+    
+    /**
+     * 插件配置（capsule-bar-configmap）更新时刷新快照
+     * 
+     * @param event 配置更新事件
+     */
+    @EventListener(PluginConfigUpdatedEvent.class)
+    public void onConfigUpdated(PluginConfigUpdatedEvent event) {
+        refresh().subscribe();
+    }
+    
+    /**
+     * 丢弃配置快照并结束变更通知，插件停止时调用
+     * 进行中的刷新完成后也不会再写入快照
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        snapshot.set(null);
+        synchronized (updates) {
+            updates.tryEmitComplete();
+        }
+    }
+    
+    /**
+     * 使用持久化的配置作为初始快照，已有快照时不替换
+     * 之后的刷新读取到相同配置时不会发出变更通知
+     * 
+     * @param setting 持久化的配置
+     */
+    public void restore(JyfacSetting setting) {
+        snapshot.compareAndSet(null, setting);
+    }
+    
+    /**
+     * 获取已加载的配置快照，不触发读取
+     * 
+     * @return 配置快照，尚未加载时为null
+     */
+    public JyfacSetting peekSetting() {
+        return snapshot.get();
     }
     
     /**
@@ -67,7 +275,7 @@ public class JyfacService {
      * @return 是否启用的Mono对象
      */
     public Mono<Boolean> isEnabled() {
-        return getCompleteSetting()
+        return getSetting()
             .map(JyfacSetting::enabled)
             .onErrorReturn(false);
     }
@@ -0,0 +1,83 @@
+package www.ppkok.com.jyfac;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import run.halo.app.security.AdditionalWebFilter;
+
+/**
+ * Jyfac插件跳过注入的缓存标记过滤器
+ * 按请求头或关闭记录跳过注入的页面与普通访客看到的页面不同，响应提交前标记为按请求头区分且只允许浏览器缓存，
+ * 避免CDN或反向代理把爬虫、探测、预取请求或已关闭公告的读者得到的页面提供给普通访客
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+@Component
+@RequiredArgsConstructor
+public class JyfacSkipCacheFilter implements AdditionalWebFilter {
+    
+    /**
+     * 记录按请求头跳过注入原因的请求属性名
+     */
+    static final String SKIP_ATTRIBUTE = JyfacSkipCacheFilter.class.getName() + ".skip";
+    
+    private final JyfacService jyfacService;
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        // 插件未启用时不会注入也不会跳过，直接放行
+        // 关闭记录不受按请求头跳过的开关控制，启用时都需要检查
+        JyfacSetting setting = jyfacService.peekSetting();
+        if (setting == null || !Boolean.TRUE.equals(setting.enabled())) {
+            return chain.filter(exchange);
+        }
+        exchange.getResponse().beforeCommit(() -> {
+            if (exchange.getAttribute(SKIP_ATTRIBUTE) instanceof String reason) {
+                HttpHeaders headers = exchange.getResponse().getHeaders();
+                headers.addAll(HttpHeaders.VARY, varyHeaders(reason));
+                headers.setCacheControl(privateCacheControl(headers.getCacheControl()));
+            }
+            return Mono.empty();
+        });
+        return chain.filter(exchange);
+    }
+    
+    /**
+     * 决定跳过注入的请求头
+     */
+    static List<String> varyHeaders(String reason) {
+        return switch (reason) {
+            case "prefetch" -> List.of("Sec-Purpose", "Purpose");
+            case "dismissed" -> List.of(HttpHeaders.COOKIE);
+            default -> List.of(HttpHeaders.USER_AGENT);
+        };
+    }
+    
+    /**
+     * 保留原有的缓存指令，把public替换为private
+     */
+    static String privateCacheControl(String cacheControl) {
+        if (cacheControl == null || cacheControl.isBlank()) {
+            return "private";
+        }
+        String directives = Arrays.stream(cacheControl.split(","))
+            .map(String::trim)
+            .filter(directive -> !directive.isEmpty() && !"public".equalsIgnoreCase(directive)
+                && !"private".equalsIgnoreCase(directive))
+            .collect(Collectors.joining(", "));
+        return directives.isEmpty() ? "private" : "private, " + directives;
+    }
+    
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
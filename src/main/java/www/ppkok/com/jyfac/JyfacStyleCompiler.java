@@ -0,0 +1,290 @@
+package www.ppkok.com.jyfac;
+
+import java.util.Locale;
+
+/**
+ * Jyfac插件样式编译器
+ * 公告样式分为与配置无关的静态规则和由CSS自定义属性组成的变量块
+ * 静态规则在配置变更间保持不变，以固定地址长期缓存，每个配置版本只需生成几百字节的变量块
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+final class JyfacStyleCompiler {
+    
+    /**
+     * 静态规则，颜色、位置和尺寸均引用变量块中的自定义属性
+     */
+    static final String BASE_CSS = JyfacMinifier.css("""
+        .capsule-container {
+            position: fixed;
+            top: var(--jyfac-top, auto);
+            right: var(--jyfac-right, auto);
+            bottom: var(--jyfac-bottom, auto);
+            left: var(--jyfac-left, auto);
+            transform: var(--jyfac-transform, none);
+            z-index: var(--jyfac-z-index, 9999);
+            display: flex;
+            align-items: center;
+            gap: 15px;
+        }
+        
+        .capsule-bar {
+            background: var(--jyfac-bg);
+            border-radius: var(--jyfac-radius, 20px);
+            padding: 12px 20px;
+            display: flex;
+            align-items: center;
+            gap: 15px;
+            box-shadow: 0 8px 32px rgba(0, 0, 0, 0.1);
+            backdrop-filter: blur(10px);
+            transition: all 0.3s ease;
+            animation: slideIn 0.5s ease;
+            position: relative;
+            overflow: hidden;
+            min-height: 50px;
+        }
+        
+        .capsule-bar:hover {
+            transform: translateY(-2px);
+            box-shadow: 0 12px 40px rgba(0, 0, 0, 0.15);
+        }
+        
+        .capsule-bar.closing {
+            animation: slideOut 0.3s ease forwards;
+        }
+        
+        @keyframes slideIn {
+            from { opacity: 0; transform: translateY(-20px); }
+            to { opacity: 1; transform: translateY(0); }
+        }
+        
+        @keyframes slideOut {
+            to { opacity: 0; transform: translateX(100px); }
+        }
+        
+        .capsule-content {
+            display: flex;
+            align-items: center;
+            gap: 10px;
+            flex: 1;
+        }
+        
+        .capsule-icon {
+            width: 24px;
+            height: 24px;
+            display: flex;
+            align-items: center;
+            justify-content: center;
+            font-size: 18px;
+            flex-shrink: 0;
+        }
+        
+        .capsule-icon svg, .capsule-icon img {
+            width: 100%;
+            height: 100%;
+            animation: swing 2s ease-in-out infinite;
+        }
+        
+        @keyframes swing {
+            0%, 100% { transform: rotate(0deg); }
+            25% { transform: rotate(-15deg); }
+            75% { transform: rotate(15deg); }
+        }
+        
+        .capsule-text-container {
+            flex: 1;
+            min-width: 0;
+        }
+        
+        .capsule-text {
+            color: var(--jyfac-text);
+            font-size: 14px;
+            font-weight: 500;
+            transition: all 0.3s ease;
+        }
+        
+        .capsule-text.single-line {
+            height: 20px;
+            overflow: hidden;
+            position: relative;
+            white-space: nowrap;
+        }
+        
+        .capsule-text.multi-line {
+            max-height: 60px;
+            overflow: hidden;
+            position: relative;
+        }
+        
+        .capsule-text.multi-line .text-item {
+            opacity: 0;
+            position: absolute;
+            top: 0;
+            left: 0;
+            right: 0;
+            white-space: normal;
+            line-height: 1.4;
+            padding: 8px 0;
+        }
+        
+        .capsule-text.multi-line .text-item.active {
+            opacity: 1;
+            position: relative;
+            animation: itemIn 0.3s ease;
+        }
+        
+        .capsule-text.multi-line .text-item.leaving {
+            animation: itemOut 0.3s ease;
+        }
+        
+        @keyframes itemIn {
+            from { opacity: 0; transform: translateY(20px); }
+        }
+        
+        @keyframes itemOut {
+            from { opacity: 1; transform: translateY(0); }
+            to { opacity: 0; transform: translateY(-20px); }
+        }
+        
+        .capsule-bar.paused .capsule-icon svg, .capsule-bar.paused .capsule-icon img {
+            animation-play-state: paused;
+        }
+        
+        .close-btn {
+            width: 24px;
+            height: 24px;
+            border-radius: 50%;
+            background: var(--jyfac-close-bg);
+            border: none;
+            cursor: pointer;
+            display: flex;
+            align-items: center;
+            justify-content: center;
+            transition: all 0.2s ease;
+            flex-shrink: 0;
+        }
+        
+        .close-btn:hover {
+            background: var(--jyfac-close-hover-bg);
+            transform: rotate(90deg);
+        }
+        
+        .close-btn:active {
+            transform: rotate(90deg) scale(0.9);
+        }
+        
+        .close-btn::before,
+        .close-btn::after {
+            content: '';
+            position: absolute;
+            width: 12px;
+            height: 2px;
+            background: var(--jyfac-close-icon);
+            border-radius: 1px;
+        }
+        
+        .close-btn::before {
+            transform: rotate(45deg);
+        }
+        
+        .close-btn::after {
+            transform: rotate(-45deg);
+        }
+        """);
+    
+    /**
+     * 静态规则的内容哈希，作为其固定地址
+     */
+    static final String BASE_HASH = JyfacRenderBundle.contentHash(BASE_CSS);
+    
+    static final JyfacEncodedAsset BASE_ASSET =
+        JyfacAssetEncoder.encode("text/css;charset=UTF-8", BASE_CSS);
+    
+    private static final Palette LIGHT =
+        new Palette("rgba(255, 255, 255, 0.95)", "#333333", "#f1f3f5", "#e9ecef", "#495057");
+    
+    private static final Palette DARK =
+        new Palette("rgba(33, 37, 41, 0.95)", "#ffffff", "#495057", "#6c757d", "#ffffff");
+    
+    private JyfacStyleCompiler() {
+    }
+    
+    /**
+     * 生成当前配置的变量块
+     * 亮光和暗夜模式使用对应的预设配色，自动模式按系统配色偏好切换预设配色
+     * 设置中修改过的背景和文字颜色在所有模式下覆盖预设配色，未修改时跟随预设
+     * @param setting 插件设置
+     * @return 变量块CSS
+     */
+    static String themeCss(JyfacSetting setting) {
+        StringBuilder css = new StringBuilder(512);
+        css.append(".capsule-container{");
+        switch (setting.position()) {
+            case "bottom-left" -> css.append("--jyfac-bottom:20px;--jyfac-left:20px;");
+            case "bottom-right" -> css.append("--jyfac-bottom:20px;--jyfac-right:20px;");
+            case "top-center" -> css.append("--jyfac-top:20px;--jyfac-left:50%;--jyfac-transform:translateX(-50%);");
+            default -> css.append("--jyfac-bottom:20px;--jyfac-left:50%;--jyfac-transform:translateX(-50%);");
+        }
+        css.append("--jyfac-z-index:").append(setting.zIndex())
+            .append(";--jyfac-radius:").append(setting.borderRadius()).append("px;");
+        String bg = customColor(setting.backgroundColor(), LIGHT.bg());
+        String text = customColor(setting.textColor(), LIGHT.text());
+        // 自动模式在系统未声明配色偏好或偏好亮色时使用亮光配色
+        ("dark".equals(setting.themeMode()) ? DARK : LIGHT).withColors(bg, text).appendTo(css);
+        css.append('}');
+        // 背景和文字都使用自定义颜色时配色不随系统变化，无需媒体查询
+        if (!"light".equals(setting.themeMode()) && !"dark".equals(setting.themeMode())
+            && (bg == null || text == null)) {
+            css.append("@media (prefers-color-scheme:dark){.capsule-container{");
+            DARK.withColors(bg, text).appendTo(css);
+            css.append("}}");
+        }
+        return css.toString();
+    }
+    
+    /**
+     * 设置中修改过的颜色，与默认值相同或为空时返回null
+     * 设置的默认颜色即亮光预设的配色
+     */
+    private static String customColor(String color, String defaultColor) {
+        String cleaned = value(color);
+        if (cleaned.isBlank() || normalize(cleaned).equals(normalize(defaultColor))) {
+            return null;
+        }
+        return cleaned;
+    }
+    
+    private static String normalize(String color) {
+        return color.replaceAll("\\s+", "").toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * 去除可能跳出声明的字符，颜色值来自配置且会内联到页面中
+     */
+    private static String value(String color) {
+        return color == null ? "" : color.replaceAll("[;{}<>\"'\\\\]", "");
+    }
+    
+    /**
+     * 一套主题配色
+     */
+    private record Palette(String bg, String text, String closeBg, String closeHoverBg, String closeIcon) {
+        
+        /**
+         * 用设置中修改过的颜色覆盖预设的背景和文字颜色
+         */
+        Palette withColors(String customBg, String customText) {
+            return new Palette(customBg != null ? customBg : bg, customText != null ? customText : text,
+                closeBg, closeHoverBg, closeIcon);
+        }
+        
+        void appendTo(StringBuilder css) {
+            css.append("--jyfac-bg:").append(bg)
+                .append(";--jyfac-text:").append(text)
+                .append(";--jyfac-close-bg:").append(closeBg)
+                .append(";--jyfac-close-hover-bg:").append(closeHoverBg)
+                .append(";--jyfac-close-icon:").append(closeIcon).append(';');
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package www.ppkok.com.jyfac;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Jyfac插件SVG图标优化工具
+ * 在编译渲染包时对图标做一次性优化，去除编辑器元数据、按画布尺寸舍入路径坐标并压缩空白
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+final class JyfacSvgOptimizer {
+    
+    private static final Pattern PROLOG =
+        Pattern.compile("<\\?xml.*?\\?>|<!DOCTYPE[^>]*>|<!--.*?-->|<metadata[\\s>].*?</metadata>",
+            Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+    
+    /**
+     * iconfont、Inkscape等编辑器写入的、不影响显示的属性
+     */
+    private static final Pattern EDITOR_ATTRIBUTE = Pattern.compile(
+        "\\s+(?:t|p-id|version|data-spm-anchor-id|xml:space|(?:sodipodi|inkscape)(?::[\\w-]+)?"
+            + "|xmlns:(?:sodipodi|inkscape))=\"[^\"]*\"");
+    
+    private static final Pattern PATH_DATA = Pattern.compile("(\\sd=\")([^\"]*)(\")");
+    
+    private static final Pattern VIEW_BOX = Pattern.compile("viewBox=\"([^\"]*)\"");
+    
+    private static final Pattern NUMBER =
+        Pattern.compile("[-+]?(?:\\d+\\.?\\d*|\\.\\d+)(?:[eE][-+]?\\d+)?");
+    
+    private static final String COMMANDS = "MmLlHhVvCcSsQqTtAaZz";
+    
+    private static final String SVG_NAMESPACE = "http://www.w3.org/2000/svg";
+    
+    private JyfacSvgOptimizer() {
+    }
+    
+    /**
+     * 优化SVG图标
+     * @param svg SVG源码
+     * @return 优化后的SVG
+     */
+    static String optimize(String svg) {
+        String result = PROLOG.matcher(svg.trim()).replaceAll("");
+        result = EDITOR_ATTRIBUTE.matcher(result).replaceAll("");
+        int decimals = precision(result);
+        Matcher matcher = PATH_DATA.matcher(result);
+        StringBuilder out = new StringBuilder(result.length());
+        while (matcher.find()) {
+            matcher.appendReplacement(out, Matcher.quoteReplacement(
+                matcher.group(1) + compactPath(matcher.group(2), decimals) + matcher.group(3)));
+        }
+        matcher.appendTail(out);
+        return out.toString()
+            .replaceAll(">\\s+<", "><")
+            .replaceAll("\\s+", " ")
+            .replaceAll("\\s+(/?>)", "$1");
+    }
+    
+    /**
+     * 生成可作为独立文件加载的SVG，内联时可省略的命名空间在独立文件中是必需的
+     * @param svg 优化后的SVG
+     * @return 独立SVG文件内容
+     */
+    static String standalone(String svg) {
+        if (svg.contains("xmlns=\"" + SVG_NAMESPACE + "\"")) {
+            return svg;
+        }
+        return svg.replaceFirst("<svg", "<svg xmlns=\"" + SVG_NAMESPACE + "\"");
+    }
+    
+    /**
+     * 根据画布尺寸确定坐标保留的小数位数，舍入误差不超过画布的千分之一，且至少保留一位小数
+     */
+    private static int precision(String svg) {
+        Matcher viewBox = VIEW_BOX.matcher(svg);
+        if (!viewBox.find()) {
+            return 2;
+        }
+        String[] parts = viewBox.group(1).trim().split("[\\s,]+");
+        try {
+            double size = Math.max(Double.parseDouble(parts[2]), Double.parseDouble(parts[3]));
+            if (size <= 0) {
+                return 2;
+            }
+            return Math.max(1, (int) Math.ceil(Math.log10(1000 / size)));
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            return 2;
+        }
+    }
+    
+    /**
+     * 舍入路径坐标并去除多余的分隔符
+     * 相对坐标按舍入后的绝对位置重新计算，舍入误差不会沿路径累积
+     * 遇到无法识别的路径语法时原样返回
+     */
+    private static String compactPath(String data, int decimals) {
+        StringBuilder out = new StringBuilder(data.length());
+        Matcher number = NUMBER.matcher(data);
+        PathCursor cursor = new PathCursor(decimals);
+        int length = data.length();
+        int i = 0;
+        char command = 0;
+        int argument = 0;
+        String previous = null;
+        while (i < length) {
+            char c = data.charAt(i);
+            if (Character.isWhitespace(c) || c == ',') {
+                i++;
+                continue;
+            }
+            if (COMMANDS.indexOf(c) >= 0) {
+                out.append(c);
+                command = c;
+                argument = 0;
+                previous = null;
+                if (c == 'Z' || c == 'z') {
+                    cursor.close();
+                }
+                i++;
+                continue;
+            }
+            int arity = arity(command);
+            if (arity == 0) {
+                return data;
+            }
+            BigDecimal value;
+            // 椭圆弧的两个标志位可能与后续数字相连，只能按单个字符读取
+            if ((command == 'A' || command == 'a') && (argument % 7 == 3 || argument % 7 == 4)) {
+                if (c != '0' && c != '1') {
+                    return data;
+                }
+                value = BigDecimal.valueOf(c - '0');
+                i++;
+            } else {
+                number.region(i, length);
+                if (!number.lookingAt()) {
+                    return data;
+                }
+                value = new BigDecimal(number.group());
+                i = number.end();
+            }
+            String text = format(cursor.next(command, argument, arity, value));
+            if (previous != null && !text.startsWith("-")
+                && !(text.startsWith(".") && previous.contains("."))) {
+                out.append(' ');
+            }
+            out.append(text);
+            previous = text;
+            argument++;
+        }
+        return out.toString();
+    }
+    
+    /**
+     * 路径命令每段的参数个数，闭合命令和无效命令为0
+     */
+    private static int arity(char command) {
+        return switch (Character.toUpperCase(command)) {
+            case 'M', 'L', 'T' -> 2;
+            case 'H', 'V' -> 1;
+            case 'S', 'Q' -> 4;
+            case 'C' -> 6;
+            case 'A' -> 7;
+            default -> 0;
+        };
+    }
+    
+    private static String format(BigDecimal value) {
+        String text = value.stripTrailingZeros().toPlainString();
+        if (text.startsWith("0.")) {
+            return text.substring(1);
+        }
+        if (text.startsWith("-0.")) {
+            return "-" + text.substring(2);
+        }
+        return text;
+    }
+    
+    /**
+     * 路径的当前点，同时记录原始位置和舍入后的位置
+     * 相对坐标先换算为原始的绝对位置并舍入，再减去舍入后的当前点，输出的路径在每一段终点都落在舍入网格上
+     */
+    private static final class PathCursor {
+        
+        private final int decimals;
+        
+        private BigDecimal x = BigDecimal.ZERO;
+        
+        private BigDecimal y = BigDecimal.ZERO;
+        
+        private BigDecimal roundedX = BigDecimal.ZERO;
+        
+        private BigDecimal roundedY = BigDecimal.ZERO;
+        
+        private BigDecimal startX = BigDecimal.ZERO;
+        
+        private BigDecimal startY = BigDecimal.ZERO;
+        
+        private BigDecimal roundedStartX = BigDecimal.ZERO;
+        
+        private BigDecimal roundedStartY = BigDecimal.ZERO;
+        
+        private BigDecimal nextX;
+        
+        private BigDecimal nextY;
+        
+        private BigDecimal nextRoundedX;
+        
+        private BigDecimal nextRoundedY;
+        
+        PathCursor(int decimals) {
+            this.decimals = decimals;
+        }
+        
+        /**
+         * 舍入一个参数，段内最后一个参数处理完后移动当前点
+         * @param command 路径命令
+         * @param argument 参数在命令后的位置
+         * @param arity 每段的参数个数
+         * @param value 参数值
+         * @return 输出的参数值
+         */
+        BigDecimal next(char command, int argument, int arity, BigDecimal value) {
+            int index = argument % arity;
+            char upper = Character.toUpperCase(command);
+            boolean relative = command != upper;
+            BigDecimal result;
+            if (upper == 'A' && index < 5) {
+                // 半径和旋转角不是坐标，标志位原样保留
+                result = index < 3 ? round(value) : value;
+            } else if (upper == 'V' || (upper != 'H' && index % 2 == (upper == 'A' ? 0 : 1))) {
+                BigDecimal absolute = relative ? y.add(value) : value;
+                BigDecimal rounded = round(absolute);
+                result = relative ? rounded.subtract(roundedY) : rounded;
+                nextY = absolute;
+                nextRoundedY = rounded;
+            } else {
+                BigDecimal absolute = relative ? x.add(value) : value;
+                BigDecimal rounded = round(absolute);
+                result = relative ? rounded.subtract(roundedX) : rounded;
+                nextX = absolute;
+                nextRoundedX = rounded;
+            }
+            if (index == arity - 1) {
+                // 段终点是最后写入的坐标，控制点在此之前写入，会被终点覆盖
+                if (upper != 'V') {
+                    x = nextX;
+                    roundedX = nextRoundedX;
+                }
+                if (upper != 'H') {
+                    y = nextY;
+                    roundedY = nextRoundedY;
+                }
+                // 移动命令后续的坐标对按直线处理，只有第一段是子路径起点
+                if (upper == 'M' && argument < arity) {
+                    startX = x;
+                    startY = y;
+                    roundedStartX = roundedX;
+                    roundedStartY = roundedY;
+                }
+            }
+            return result;
+        }
+        
+        /**
+         * 闭合子路径，当前点回到子路径起点
+         */
+        void close() {
+            x = startX;
+            y = startY;
+            roundedX = roundedStartX;
+            roundedY = roundedStartY;
+        }
+        
+        private BigDecimal round(BigDecimal value) {
+            return value.setScale(decimals, RoundingMode.HALF_UP);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package www.ppkok.com.jyfac;
+
+import java.util.Locale;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.context.IWebContext;
+import org.thymeleaf.web.IWebRequest;
+
+/**
+ * Jyfac插件投放判断服务
+ * 在生成任何内容之前判断当前页面是否需要注入，判断规则按配置版本编译一次后复用
+ * 
+ * @author Jyf
+ * @since 1.2.2
+ */
+@Component
+public class JyfacTargetingService {
+    
+    /**
+     * 记录访客已关闭的公告版本的Cookie名
+     */
+    static final String DISMISS_COOKIE = "jyfac_dismissed";
+    
+    private static final String ACCEPT_LANGUAGE = "Accept-Language";
+    
+    private static final String USER_AGENT = "User-Agent";
+    
+    /**
+     * 标记预取请求的请求头，Sec-Purpose为当前标准，其余为各浏览器的旧写法
+     */
+    private static final String SEC_PURPOSE = "Sec-Purpose";
+    
+    private static final String[] LEGACY_PURPOSE = {"Purpose", "X-Purpose", "X-Moz"};
+    
+    /**
+     * 当前配置快照及其编译后的规则
+     */
+    private volatile Compiled current;
+    
+    /**
+     * 判断当前页面是否跳过注入
+     * 先按请求头排除爬虫、探测和预取请求，再匹配路径规则
+     * @param context 模板上下文
+     * @param setting 插件设置
+     * @return 跳过原因，需要注入时为null
+     */
+    public String skipReason(ITemplateContext context, JyfacSetting setting) {
+        Compiled compiled = compiled(setting);
+        if (context instanceof IWebContext webContext) {
+            String reason = requestClass(webContext.getExchange().getRequest(), compiled, setting);
+            if (reason != null) {
+                return reason;
+            }
+        }
+        if (!compiled.routeMatcher().matches(requestPath(context))) {
+            return "route";
+        }
+        return null;
+    }
+    
+    /**
+     * 判断访客是否已关闭当前版本的公告
+     * @param context 模板上下文
+     * @param bundle 渲染包
+     * @return 是否已关闭
+     */
+    public boolean isDismissed(ITemplateContext context, JyfacRenderBundle bundle) {
+        if (context instanceof IWebContext webContext) {
+            return bundle.dismissKey().equals(
+                webContext.getExchange().getRequest().getCookieValue(DISMISS_COOKIE));
+        }
+        return false;
+    }
+    
+    /**
+     * 选择当前请求的公告语言
+     * 优先使用主题语言，其次按Accept-Language匹配
+     * @param context 模板上下文
+     * @param setting 插件设置
+     * @return 设置中的语言标签，使用默认内容时为null
+     */
+    public String locale(ITemplateContext context, JyfacSetting setting) {
+        if (setting.localizedContents().isEmpty()) {
+            return null;
+        }
+        String acceptLanguage = null;
+        if (context instanceof IWebContext webContext) {
+            acceptLanguage = webContext.getExchange().getRequest().getHeaderValue(ACCEPT_LANGUAGE);
+        }
+        return compiled(setting).localeResolver().resolve(context.getLocale(), acceptLanguage);
+    }
+    
+    /**
+     * 预先编译配置中的路径规则和语言规则
+     * @param setting 插件设置
+     */
+    public void prewarm(JyfacSetting setting) {
+        compiled(setting);
+    }
+    
+    /**
+     * 丢弃已编译的规则，插件停止时调用
+     */
+    public void clear() {
+        current = null;
+    }
+    
+    private Compiled compiled(JyfacSetting setting) {
+        Compiled compiled = current;
+        if (compiled == null || compiled.setting() != setting) {
+            compiled = new Compiled(setting,
+                JyfacRouteMatcher.compile(setting.includePaths(), setting.excludePaths()),
+                JyfacLocaleResolver.compile(setting.localizedContents()),
+                JyfacAgentClassifier.compile(setting.effectiveBotUserAgents()));
+            current = compiled;
+        }
+        return compiled;
+    }
+    
+    /**
+     * 按请求头判断不需要公告的请求
+     * @return bot、probe、prefetch之一，普通请求为null
+     */
+    private static String requestClass(IWebRequest request, Compiled compiled, JyfacSetting setting) {
+        if (compiled.agentClassifier() != JyfacAgentClassifier.NONE) {
+            String userAgent = request.getHeaderValue(USER_AGENT);
+            if (userAgent == null || userAgent.isBlank() || "HEAD".equals(request.getMethod())) {
+                return "probe";
+            }
+            if (compiled.agentClassifier().matches(userAgent)) {
+                return "bot";
+            }
+        }
+        if (setting.prefetchBypass() && isPrefetch(request)) {
+            return "prefetch";
+        }
+        return null;
+    }
+    
+    /**
+     * 预渲染的页面会执行脚本并可能直接展示给访客，只有不执行脚本的预取请求才跳过
+     */
+    private static boolean isPrefetch(IWebRequest request) {
+        String purpose = request.getHeaderValue(SEC_PURPOSE);
+        if (purpose != null) {
+            return purpose.contains("prefetch") && !purpose.contains("prerender");
+        }
+        for (String header : LEGACY_PURPOSE) {
+            String value = request.getHeaderValue(header);
+            if (value != null) {
+                String lower = value.toLowerCase(Locale.ROOT);
+                return "prefetch".equals(lower) || "preview".equals(lower);
+            }
+        }
+        return false;
+    }
+    
+    private static String requestPath(ITemplateContext context) {
+        if (context instanceof IWebContext webContext) {
+            return webContext.getExchange().getRequest().getPathWithinApplication();
+        }
+        return null;
+    }
+    
+    private record Compiled(JyfacSetting setting, JyfacRouteMatcher routeMatcher,
+                            JyfacLocaleResolver localeResolver, JyfacAgentClassifier agentClassifier) {
+    }
+}
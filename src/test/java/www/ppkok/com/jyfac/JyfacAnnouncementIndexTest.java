@@ -0,0 +1,93 @@
+package www.ppkok.com.jyfac;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 时间窗口为左闭右开区间，同一时刻生效的公告按优先级从高到低排列
+ */
+class JyfacAnnouncementIndexTest {
+
+    @Test
+    void windowsIncludeStartAndExcludeEnd() {
+        JyfacAnnouncementIndex index = JyfacAnnouncementIndex.build(List.of(
+            new JyfacAnnouncementIndex.Window(100, 200, 0, "维护通知")));
+
+        assertThat(index.activeAt(99)).isEmpty();
+        assertThat(index.activeAt(100)).containsExactly("维护通知");
+        assertThat(index.activeAt(199)).containsExactly("维护通知");
+        assertThat(index.activeAt(200)).isEmpty();
+    }
+
+    @Test
+    void openEndedWindowsCoverAllTime() {
+        JyfacAnnouncementIndex index = JyfacAnnouncementIndex.build(List.of(
+            JyfacAnnouncementIndex.Window.of(null, Instant.ofEpochMilli(100), 0, "开始前"),
+            JyfacAnnouncementIndex.Window.of(Instant.ofEpochMilli(100), null, 0, "开始后")));
+
+        assertThat(index.activeAt(Long.MIN_VALUE)).containsExactly("开始前");
+        assertThat(index.activeAt(99)).containsExactly("开始前");
+        assertThat(index.activeAt(100)).containsExactly("开始后");
+        assertThat(index.activeAt(Long.MAX_VALUE)).containsExactly("开始后");
+        assertThat(index.nextBoundaryAfter(0)).isEqualTo(100);
+        assertThat(index.nextBoundaryAfter(100)).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void overlappingWindowsAreOrderedByPriority() {
+        JyfacAnnouncementIndex index = JyfacAnnouncementIndex.build(List.of(
+            new JyfacAnnouncementIndex.Window(0, 300, 1, "普通"),
+            new JyfacAnnouncementIndex.Window(100, 200, 5, "紧急"),
+            new JyfacAnnouncementIndex.Window(50, 250, 1, "活动")));
+
+        assertThat(index.activeAt(10)).containsExactly("普通");
+        assertThat(index.activeAt(60)).containsExactly("普通", "活动");
+        assertThat(index.activeAt(150)).containsExactly("紧急", "普通", "活动");
+        assertThat(index.activeAt(220)).containsExactly("普通", "活动");
+        assertThat(index.nextBoundaryAfter(150)).isEqualTo(200);
+    }
+
+    @Test
+    void ignoresEmptyAndInvertedWindows() {
+        JyfacAnnouncementIndex index = JyfacAnnouncementIndex.build(List.of(
+            new JyfacAnnouncementIndex.Window(200, 100, 0, "结束早于开始"),
+            new JyfacAnnouncementIndex.Window(100, 100, 0, "长度为零"),
+            new JyfacAnnouncementIndex.Window(0, 100, 0, "  "),
+            new JyfacAnnouncementIndex.Window(0, 100, 0, null)));
+
+        assertThat(index).isSameAs(JyfacAnnouncementIndex.EMPTY);
+        assertThat(index.activeAt(50)).isEmpty();
+        assertThat(index.nextBoundaryAfter(50)).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void matchesLinearScanForRandomWindows() {
+        Random random = new Random(42);
+        List<JyfacAnnouncementIndex.Window> windows = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            long start = random.nextInt(1000);
+            windows.add(new JyfacAnnouncementIndex.Window(start, start + 1 + random.nextInt(200),
+                random.nextInt(4), "公告" + i));
+        }
+        JyfacAnnouncementIndex index = JyfacAnnouncementIndex.build(windows);
+
+        List<JyfacAnnouncementIndex.Window> ordered = windows.stream()
+            .sorted(Comparator.comparingInt(JyfacAnnouncementIndex.Window::priority).reversed()
+                .thenComparingLong(JyfacAnnouncementIndex.Window::start))
+            .toList();
+        for (long time = -1; time <= 1300; time++) {
+            long point = time;
+            List<String> expected = ordered.stream()
+                .filter(window -> window.start() <= point && point < window.end())
+                .map(JyfacAnnouncementIndex.Window::content)
+                .toList();
+            assertThat(index.activeAt(time)).as("时间 %d", time).isEqualTo(expected);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package www.ppkok.com.jyfac;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import run.halo.app.extension.ReactiveExtensionClient;
+
+/**
+ * 写入统计资源期间到达的上报不会丢失
+ */
+class JyfacBeaconServiceTest {
+
+    private static final int THREADS = 4;
+
+    private static final int BEACONS_PER_THREAD = 200_000;
+
+    private final Map<String, AnnouncementStat> stats = new ConcurrentHashMap<>();
+
+    private final JyfacSetting setting = JyfacTestSupport.setting(Map.of("analytics", true));
+
+    private final JyfacService service = new JyfacService(JyfacTestSupport.settingFetcher(() -> setting),
+        JyfacTestSupport.metrics());
+
+    private final JyfacBundleService bundleService =
+        JyfacTestSupport.bundleService(service, JyfacTestSupport.metrics());
+
+    private final JyfacBeaconService beaconService =
+        new JyfacBeaconService(statClient(), service, bundleService);
+
+    @AfterEach
+    void tearDown() {
+        beaconService.dispose();
+    }
+
+    @Test
+    void unknownKeysAreDropped() {
+        beaconService.record(0x1234L, 1, 1, 1);
+        beaconService.flush().block();
+
+        assertThat(stats).isEmpty();
+    }
+
+    @Test
+    void beaconsRecordedDuringFlushAreKept() throws InterruptedException {
+        long key = Long.parseUnsignedLong(bundleService.getBundle(setting).dismissKey(), 16);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < BEACONS_PER_THREAD; i++) {
+                        beaconService.record(key, 1, 2, 3);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        int flushes = 0;
+        while (done.getCount() > 0) {
+            beaconService.flush().block();
+            flushes++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        beaconService.flush().block();
+
+        long expected = (long) THREADS * BEACONS_PER_THREAD;
+        assertThat(flushes).isPositive();
+        assertThat(stats.values()).extracting(stat -> stat.getSpec().getImpressions()).containsExactly(expected);
+        assertThat(stats.values()).extracting(stat -> stat.getSpec().getClicks()).containsExactly(expected * 2);
+        assertThat(stats.values()).extracting(stat -> stat.getSpec().getDismissals())
+            .containsExactly(expected * 3);
+    }
+
+    /**
+     * 把统计资源保存在内存中的客户端
+     */
+    private ReactiveExtensionClient statClient() {
+        return (ReactiveExtensionClient) Proxy.newProxyInstance(
+            ReactiveExtensionClient.class.getClassLoader(),
+            new Class<?>[] {ReactiveExtensionClient.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "fetch" -> Mono.justOrEmpty(stats.get((String) args[1]));
+                case "create", "update" -> {
+                    AnnouncementStat stat = (AnnouncementStat) args[0];
+                    stats.put(stat.getMetadata().getName(), stat);
+                    yield Mono.just(stat);
+                }
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> "StubStatClient";
+                default -> Mono.empty();
+            });
+    }
+}
@@ -0,0 +1,43 @@
+package www.ppkok.com.jyfac;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 引导模式内联在每个页面中，体积不能超出预算
+ */
+class JyfacBundleCompilerTest {
+
+    private final JyfacBundleCompiler compiler = new JyfacBundleCompiler();
+
+    @Test
+    void bootstrapTagsStayWithinBudget() {
+        for (JyfacSetting setting : new JyfacSetting[] {
+            JyfacSetting.defaultSetting(),
+            JyfacTestSupport.setting(Map.of("injectMode", "bootstrap", "text", "很长的公告".repeat(50)))}) {
+            String bootstrapTags = compiler.compile(setting).bootstrapTags();
+
+            assertThat(bootstrapTags.getBytes(StandardCharsets.UTF_8).length)
+                .isLessThanOrEqualTo(JyfacBundleCompiler.BOOTSTRAP_BUDGET);
+            assertThat(compiler.compile(setting).injectedBytes("bootstrap"))
+                .isEqualTo(bootstrapTags.getBytes(StandardCharsets.UTF_8).length);
+        }
+    }
+
+    @Test
+    void bootstrapScriptChecksDismissalBeforeLoading() {
+        JyfacRenderBundle bundle = compiler.compile(JyfacSetting.defaultSetting());
+        String script = bundle.bootstrapTags();
+
+        assertThat(script).startsWith("<script>").endsWith("</script>");
+        assertThat(script).contains("'" + bundle.dismissKey() + "'")
+            .contains(JyfacTargetingService.DISMISS_COOKIE)
+            .contains(JyfacBundleCompiler.AUTO_HIDDEN_KEY)
+            .contains("requestIdleCallback")
+            .contains(bundle.hash());
+        assertThat(script.indexOf("d.cookie")).isLessThan(script.indexOf("createElement"));
+    }
+}
@@ -0,0 +1,79 @@
+package www.ppkok.com.jyfac;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 语言缓存中的渲染包资源在哈希缓存淘汰后仍可访问，配置变化后由后台编译渲染包
+ */
+class JyfacBundleServiceTest {
+
+    private static final List<String> LOCALES = List.of("en", "en-GB", "zh-CN", "zh-TW", "ja", "ko", "fr",
+        "de", "es", "it", "pt", "ru", "ar", "nl", "sv");
+
+    @Test
+    void everyCachedLocaleKeepsItsAssets() {
+        List<Map<String, Object>> contents = new ArrayList<>();
+        for (String locale : LOCALES) {
+            contents.add(Map.of("locale", locale, "text", "公告 " + locale, "multiLineTexts", ""));
+        }
+        JyfacSetting setting = JyfacTestSupport.setting(Map.of("localizedContents", contents));
+        JyfacService service = new JyfacService(JyfacTestSupport.settingFetcher(() -> setting),
+            JyfacTestSupport.metrics());
+        JyfacBundleService bundleService = JyfacTestSupport.bundleService(service, JyfacTestSupport.metrics());
+
+        Map<String, JyfacRenderBundle> bundles = bundleService.getLocaleBundles(setting);
+
+        assertThat(bundles).hasSize(LOCALES.size() + 1);
+        assertThat(bundles.values()).extracting(JyfacRenderBundle::hash).doesNotHaveDuplicates();
+        // 各语言的样式相同，只压缩一次
+        JyfacEncodedAsset css = bundles.get("").assets().get("css");
+        assertThat(bundles.values()).allSatisfy(bundle -> assertThat(bundle.assets().get("css")).isSameAs(css));
+        bundles.forEach((locale, bundle) -> {
+            assertThat(bundleService.findByHash(bundle.hash())).as("语言 %s", locale).containsSame(bundle);
+            assertThat(bundleService.isKnownDismissKey(bundle.dismissKey())).isTrue();
+        });
+    }
+
+    @Test
+    void settingChangeCompilesOutsideRenderThread() throws InterruptedException {
+        AtomicReference<JyfacSetting> saved =
+            new AtomicReference<>(JyfacTestSupport.setting(Map.of("text", "第一版公告")));
+        JyfacService service = new JyfacService(JyfacTestSupport.settingFetcher(saved::get),
+            JyfacTestSupport.metrics());
+        List<String> compileThreads = new CopyOnWriteArrayList<>();
+        JyfacBundleCompiler compiler = new JyfacBundleCompiler() {
+            @Override
+            public JyfacRenderBundle compile(JyfacSetting setting, String locale) {
+                compileThreads.add(Thread.currentThread().getName());
+                return super.compile(setting, locale);
+            }
+        };
+        JyfacBundleService bundleService = new JyfacBundleService(compiler, JyfacTestSupport.metrics(), service,
+            new JyfacAnnouncementService(JyfacTestSupport.extensionClient(), event -> {
+            }));
+        // 冷启动时还没有任何渲染包，只能在请求中编译
+        JyfacSetting first = service.getSetting().block();
+        JyfacRenderBundle firstBundle = bundleService.getRenderVariant(first, null).bundle();
+        compileThreads.clear();
+
+        saved.set(JyfacTestSupport.setting(Map.of("text", "第二版公告")));
+        JyfacSetting second = service.refresh().block();
+        JyfacRenderBundle rendered = bundleService.getRenderVariant(second, null).bundle();
+        assertThat(rendered.html()).containsAnyOf("第一版公告", "第二版公告");
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (bundleService.getRenderVariant(second, null).bundle() == firstBundle && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(bundleService.getRenderVariant(second, null).bundle().html()).contains("第二版公告");
+        assertThat(compileThreads).isNotEmpty().allSatisfy(name -> assertThat(name).startsWith("boundedElastic"));
+        bundleService.dispose();
+    }
+}
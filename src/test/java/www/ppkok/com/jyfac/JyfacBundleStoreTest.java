@@ -0,0 +1,129 @@
+package www.ppkok.com.jyfac;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import run.halo.app.plugin.PluginContext;
+
+/**
+ * 渲染包文件损坏、格式不匹配或由其他插件版本写入时都不使用，由启动流程重新编译
+ */
+class JyfacBundleStoreTest {
+
+    @TempDir
+    Path workDir;
+
+    private JyfacBundleStore.Snapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        JyfacSetting setting = JyfacTestSupport.setting(Map.of("text", "持久化公告"));
+        JyfacService service = new JyfacService(JyfacTestSupport.settingFetcher(() -> setting),
+            JyfacTestSupport.metrics());
+        JyfacBundleService bundleService = JyfacTestSupport.bundleService(service, JyfacTestSupport.metrics());
+        snapshot = new JyfacBundleStore.Snapshot(setting, List.of("定时公告"),
+            bundleService.getLocaleBundles(setting));
+    }
+
+    @Test
+    void savedSnapshotIsLoadedAfterRestart() {
+        store("1.0.0").save(snapshot);
+
+        Optional<JyfacBundleStore.Snapshot> loaded = store("1.0.0").load();
+
+        assertThat(loaded).isPresent();
+        assertThat(loaded.get().setting()).isEqualTo(snapshot.setting());
+        assertThat(loaded.get().announcements()).isEqualTo(snapshot.announcements());
+        assertThat(loaded.get().fingerprint()).isEqualTo(snapshot.fingerprint());
+        assertThat(loaded.get().bundles()).containsOnlyKeys(snapshot.bundles().keySet());
+        snapshot.bundles().forEach((locale, bundle) -> {
+            JyfacRenderBundle restored = loaded.get().bundles().get(locale);
+            assertThat(restored.hash()).isEqualTo(bundle.hash());
+            assertThat(restored.headTags()).isEqualTo(bundle.headTags());
+            assertThat(restored.injectedBytes()).isEqualTo(bundle.injectedBytes());
+            assertThat(restored.assets()).containsOnlyKeys(bundle.assets().keySet());
+            bundle.assets().forEach((name, asset) ->
+                assertThat(restored.assets().get(name).gzip()).isEqualTo(asset.gzip()));
+        });
+    }
+
+    @Test
+    void missingFileIsIgnored() {
+        assertThat(store("1.0.0").load()).isEmpty();
+    }
+
+    @Test
+    void fileFromAnotherPluginVersionIsIgnored() {
+        store("1.0.0").save(snapshot);
+
+        assertThat(store("1.0.1").load()).isEmpty();
+    }
+
+    @Test
+    void wrongMagicIsIgnored() throws IOException {
+        assertCorruptedFileIgnored(bytes -> bytes[0] = 'X');
+    }
+
+    @Test
+    void wrongFormatVersionIsIgnored() throws IOException {
+        assertCorruptedFileIgnored(bytes -> ByteBuffer.wrap(bytes).putInt(4, 2));
+    }
+
+    @Test
+    void checksumMismatchIsIgnored() throws IOException {
+        assertCorruptedFileIgnored(bytes -> bytes[bytes.length - 1] ^= 0x01);
+    }
+
+    @Test
+    void truncatedFileIsIgnored() throws IOException {
+        JyfacBundleStore store = store("1.0.0");
+        store.save(snapshot);
+        Path file = store.file();
+        byte[] bytes = Files.readAllBytes(file);
+
+        for (int length : new int[] {0, 6, 40, bytes.length / 2, bytes.length - 1}) {
+            Files.write(file, Arrays.copyOf(bytes, length));
+            assertThat(store("1.0.0").load()).as("保留 %d 字节", length).isEmpty();
+        }
+    }
+
+    private void assertCorruptedFileIgnored(Corruption corruption) throws IOException {
+        JyfacBundleStore store = store("1.0.0");
+        store.save(snapshot);
+        Path file = store.file();
+        byte[] bytes = Files.readAllBytes(file);
+        corruption.apply(bytes);
+        Files.write(file, bytes);
+
+        assertThat(store("1.0.0").load()).isEmpty();
+    }
+
+    private JyfacBundleStore store(String pluginVersion) {
+        PluginContext pluginContext = mock(PluginContext.class);
+        when(pluginContext.getName()).thenReturn("jyfac");
+        when(pluginContext.getVersion()).thenReturn(pluginVersion);
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(
+            new MapPropertySource("test", Map.of("halo.work-dir", workDir.toString())));
+        return new JyfacBundleStore(pluginContext, environment);
+    }
+
+    private interface Corruption {
+
+        void apply(byte[] bytes);
+    }
+}
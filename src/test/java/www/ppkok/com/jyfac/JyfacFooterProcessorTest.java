@@ -0,0 +1,87 @@
+package www.ppkok.com.jyfac;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IModelFactory;
+
+/**
+ * 页脚直出模式下同一页面的头部和页脚必须来自同一个配置版本
+ * 每个用例在头部渲染之后、页脚渲染之前保存新配置
+ */
+class JyfacFooterProcessorTest {
+
+    private final AtomicReference<JyfacSetting> configMap = new AtomicReference<>();
+
+    private final IModelFactory modelFactory = JyfacTestSupport.modelFactory();
+
+    private JyfacService service;
+
+    private JyfacHeadProcessor headProcessor;
+
+    private JyfacFooterProcessor footerProcessor;
+
+    @BeforeEach
+    void setUp() {
+        JyfacMetrics metrics = JyfacTestSupport.metrics();
+        service = new JyfacService(JyfacTestSupport.settingFetcher(configMap::get), metrics);
+        JyfacBundleService bundleService = JyfacTestSupport.bundleService(service, metrics);
+        JyfacTargetingService targetingService = new JyfacTargetingService();
+        headProcessor = new JyfacHeadProcessor(service, bundleService, targetingService, metrics);
+        footerProcessor = new JyfacFooterProcessor(service, bundleService, targetingService);
+    }
+
+    @Test
+    void footerRendersTheBundleChosenByHead() {
+        save(JyfacTestSupport.setting(Map.of("injectMode", "footer", "text", "第一版公告")));
+        String[] page = renderPage(
+            JyfacTestSupport.setting(Map.of("injectMode", "footer", "text", "第二版公告")));
+
+        assertThat(page[1]).contains("第一版公告").doesNotContain("第二版公告");
+    }
+
+    @Test
+    void footerStaysEmptyWhenHeadUsedAnotherMode() {
+        // 头部已用内联脚本插入公告，页脚再输出会出现两个公告
+        save(JyfacTestSupport.setting(Map.of("injectMode", "inline", "text", "内联公告")));
+        String[] page = renderPage(
+            JyfacTestSupport.setting(Map.of("injectMode", "footer", "text", "页脚公告")));
+
+        assertThat(page[0]).contains("内联公告");
+        assertThat(page[1]).isEmpty();
+    }
+
+    @Test
+    void footerStaysEmptyWhenHeadSkipped() {
+        save(JyfacTestSupport.setting(Map.of("enabled", false, "injectMode", "footer")));
+        String[] page = renderPage(
+            JyfacTestSupport.setting(Map.of("injectMode", "footer", "text", "启用后的公告")));
+
+        assertThat(page[0]).isEmpty();
+        assertThat(page[1]).isEmpty();
+    }
+
+    private void save(JyfacSetting setting) {
+        configMap.set(setting);
+        service.refresh().block();
+    }
+
+    /**
+     * 渲染头部，保存新配置，再渲染页脚
+     */
+    private String[] renderPage(JyfacSetting savedBetween) {
+        ITemplateContext context = JyfacTestSupport.browserContext(modelFactory, new HashMap<>());
+        IModel head = modelFactory.createModel();
+        headProcessor.process(context, head, null).block();
+        save(savedBetween);
+        IModel footer = modelFactory.createModel();
+        footerProcessor.process(context, null, null, footer).block();
+        return new String[] {JyfacTestSupport.write(head), JyfacTestSupport.write(footer)};
+    }
+}
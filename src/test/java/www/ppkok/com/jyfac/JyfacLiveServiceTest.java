@@ -0,0 +1,60 @@
+package www.ppkok.com.jyfac;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Mono;
+
+/**
+ * 配置不可用时推送连接保持打开，不会让浏览器立即重连
+ */
+class JyfacLiveServiceTest {
+
+    private final JyfacSetting setting = JyfacTestSupport.setting(Map.of("enabled", true, "livePush", true));
+
+    private final AtomicBoolean available = new AtomicBoolean();
+
+    private final JyfacService service = new JyfacService(JyfacTestSupport.settingResults(() -> available.get()
+        ? Mono.just(setting)
+        : Mono.error(new IllegalStateException("配置存储不可用"))), JyfacTestSupport.metrics());
+
+    private final JyfacLiveService liveService =
+        new JyfacLiveService(service, JyfacTestSupport.bundleService(service, JyfacTestSupport.metrics()));
+
+    @AfterEach
+    void tearDown() {
+        liveService.dispose();
+    }
+
+    @Test
+    void unavailableSettingKeepsConnectionOpen() {
+        List<ServerSentEvent<String>> events = liveService.events("", "")
+            .take(Duration.ofMillis(500))
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).comment()).isEqualTo("unavailable");
+        assertThat(events.get(0).retry()).isEqualTo(Duration.ofSeconds(15));
+    }
+
+    @Test
+    void firstUpdateEndsWaitingConnection() {
+        Mono<List<ServerSentEvent<String>>> events = liveService.events("", "").collectList().cache();
+        events.subscribe();
+
+        available.set(true);
+        assertThat(service.refresh().block()).isEqualTo(setting);
+
+        // 更新事件不转发给等待中的连接，浏览器重连后按页面语言补发
+        assertThat(events.block(Duration.ofSeconds(5)))
+            .extracting(ServerSentEvent::comment)
+            .containsExactly("unavailable");
+    }
+}
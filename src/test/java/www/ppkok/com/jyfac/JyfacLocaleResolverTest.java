@@ -0,0 +1,68 @@
+package www.ppkok.com.jyfac;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 依次按完整语言标签、截短的语言标签、相同语种匹配，均不匹配时使用默认内容
+ */
+class JyfacLocaleResolverTest {
+
+    private final JyfacLocaleResolver resolver = JyfacLocaleResolver.compile(List.of(
+        content("en"), content("zh-TW"), content("ja-JP"), content(" "), content(null)));
+
+    @Test
+    void withoutLocalizedContentUsesDefault() {
+        JyfacLocaleResolver empty = JyfacLocaleResolver.compile(List.of(content("  ")));
+
+        assertThat(empty).isSameAs(JyfacLocaleResolver.DEFAULT_ONLY);
+        assertThat(empty.resolve(Locale.ENGLISH, "en")).isNull();
+    }
+
+    @Test
+    void themeLocaleComesBeforeAcceptLanguage() {
+        assertThat(resolver.resolve(Locale.forLanguageTag("zh-TW"), "en")).isEqualTo("zh-TW");
+        assertThat(resolver.resolve(Locale.forLanguageTag("en-US"), "ja-JP")).isEqualTo("en");
+    }
+
+    @Test
+    void acceptLanguageFollowsWeights() {
+        assertThat(resolver.resolve(null, "fr;q=0.9, ja-JP;q=0.8, en;q=0.5")).isEqualTo("ja-JP");
+        assertThat(resolver.resolve(null, "en;q=0.2, zh-TW;q=0.7")).isEqualTo("zh-TW");
+    }
+
+    @Test
+    void fallsBackFromRegionToLanguage() {
+        assertThat(resolver.resolve(null, "en-GB")).isEqualTo("en");
+        assertThat(resolver.resolve(Locale.forLanguageTag("en-AU"), null)).isEqualTo("en");
+    }
+
+    @Test
+    void fallsBackToSameLanguageWithAnotherRegion() {
+        assertThat(resolver.resolve(null, "zh-CN")).isEqualTo("zh-TW");
+        assertThat(resolver.resolve(null, "ja")).isEqualTo("ja-JP");
+    }
+
+    @Test
+    void unmatchedOrInvalidLanguageUsesDefault() {
+        assertThat(resolver.resolve(null, "fr-FR, de;q=0.8")).isNull();
+        assertThat(resolver.resolve(null, "*")).isNull();
+        assertThat(resolver.resolve(null, ";;;q=abc")).isNull();
+        assertThat(resolver.resolve(Locale.ROOT, null)).isNull();
+        assertThat(resolver.resolve(null, null)).isNull();
+    }
+
+    @Test
+    void repeatedRequestsReturnTheSameSelection() {
+        for (int i = 0; i < 600; i++) {
+            assertThat(resolver.resolve(null, "en-GB;q=0." + (i % 10))).isEqualTo("en");
+        }
+    }
+
+    private static JyfacLocaleContent content(String locale) {
+        return new JyfacLocaleContent(locale, "公告", "");
+    }
+}
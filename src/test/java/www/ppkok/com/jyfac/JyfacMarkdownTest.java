@@ -0,0 +1,105 @@
+package www.ppkok.com.jyfac;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * 公告内容只输出允许的标签和安全的链接，其余内容一律作为文本
+ */
+class JyfacMarkdownTest {
+
+    @Test
+    void rendersInlineMarkdown() {
+        assertThat(JyfacMarkdown.render("**粗体** *斜体* `代码` [链接](https://example.com/a?b=1&c=2)"))
+            .isEqualTo("<strong>粗体</strong> <em>斜体</em> <code>代码</code> "
+                + "<a href=\"https://example.com/a?b=1&amp;c=2\">链接</a>");
+    }
+
+    @Test
+    void escapesScriptTags() {
+        assertThat(JyfacMarkdown.render("<script>alert(1)</script>"))
+            .isEqualTo("&lt;script&gt;alert(1)&lt;/script&gt;");
+        assertThat(JyfacMarkdown.render("<SCRIPT src=//evil.example></SCRIPT>"))
+            .doesNotContain("<SCRIPT", "<script");
+        assertThat(JyfacMarkdown.render("<img src=x onerror=alert(1)>"))
+            .isEqualTo("&lt;img src=x onerror=alert(1)&gt;");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "javascript:alert(1)",
+        "JavaScript:alert(1)",
+        " javascript:alert(1)",
+        "java\tscript:alert(1)",
+        "data:text/html;base64,PHNjcmlwdD5hbGVydCgxKTwvc2NyaXB0Pg==",
+        "vbscript:msgbox(1)"
+    })
+    void dropsUnsafeMarkdownLinks(String url) {
+        String html = JyfacMarkdown.render("[点我](" + url + ")");
+        assertThat(html).doesNotContain("<a").contains("点我");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "javascript:alert(1)",
+        "data:image/svg+xml,%3Csvg%20onload=alert(1)%3E",
+        "&#106;avascript:alert(1)",
+        "&#x6A;avascript:alert(1)",
+        "&#0000106avascript:alert(1)",
+        "java&#x09;script:alert(1)",
+        "javascript&colon;alert(1)"
+    })
+    void dropsUnsafeAnchorHrefs(String url) {
+        String html = JyfacMarkdown.render("<a href=\"" + url + "\">点我</a>");
+        assertThat(html).isEqualTo("<a>点我</a>");
+    }
+
+    @Test
+    void encodedEntitiesInMarkdownLinksStayText() {
+        // 地址中的&会转义为&amp;，浏览器不会把其后的内容解码为协议
+        String html = JyfacMarkdown.render("[点我](&#106;avascript:alert(1))");
+        assertThat(html).doesNotContain("href=\"&#106;").doesNotContain("href=\"javascript");
+    }
+
+    @Test
+    void attributeValuesCannotBreakOutOfQuotes() {
+        assertThat(JyfacMarkdown.render("<a href=\"/a\" title='x\" onmouseover=\"alert(1)'>t</a>"))
+            .isEqualTo("<a href=\"/a\" title=\"x&quot; onmouseover=&quot;alert(1)\">t</a>");
+        assertThat(JyfacMarkdown.render("[t](/a\"onmouseover=alert(1))"))
+            .isEqualTo("<a href=\"/a&quot;onmouseover=alert(1\">t</a>)");
+        assertThat(JyfacMarkdown.render("<b onclick=\"alert(1)\">粗体</b>"))
+            .isEqualTo("<b>粗体</b>");
+        assertThat(JyfacMarkdown.render("<a href=\"/a\" onclick=\"alert(1)\" target=\"_blank\">t</a>"))
+            .isEqualTo("<a href=\"/a\" target=\"_blank\" rel=\"noopener noreferrer\">t</a>");
+    }
+
+    @Test
+    void unbalancedEmphasisStaysText() {
+        assertThat(JyfacMarkdown.render("**未闭合")).isEqualTo("**未闭合");
+        assertThat(JyfacMarkdown.render("*未闭合")).isEqualTo("*未闭合");
+        assertThat(JyfacMarkdown.render("**粗体 *未闭合**")).isEqualTo("<strong>粗体 *未闭合</strong>");
+        assertThat(JyfacMarkdown.render("**粗体 *斜体* 粗体**"))
+            .isEqualTo("<strong>粗体 <em>斜体</em> 粗体</strong>");
+        assertThat(JyfacMarkdown.render("2 * 3 * 4")).isEqualTo("2 * 3 * 4");
+    }
+
+    @Test
+    void unbalancedTagsAreClosedInOrder() {
+        assertThat(JyfacMarkdown.render("<b><i>未闭合")).isEqualTo("<b><i>未闭合</i></b>");
+        assertThat(JyfacMarkdown.render("<b><i>交叉</b></i>")).isEqualTo("<b><i>交叉</i></b>");
+        assertThat(JyfacMarkdown.render("</b>多余的关闭")).isEqualTo("多余的关闭");
+    }
+
+    @Test
+    void codeSpansKeepHtmlAsText() {
+        assertThat(JyfacMarkdown.render("`<script>alert(1)</script>`"))
+            .isEqualTo("<code>&lt;script&gt;alert(1)&lt;/script&gt;</code>");
+        assertThat(JyfacMarkdown.render("`<b>**不是粗体**</b>`"))
+            .isEqualTo("<code>&lt;b&gt;**不是粗体**&lt;/b&gt;</code>");
+        assertThat(JyfacMarkdown.render("`[链接](javascript:alert(1))`"))
+            .isEqualTo("<code>[链接](javascript:alert(1))</code>");
+    }
+}
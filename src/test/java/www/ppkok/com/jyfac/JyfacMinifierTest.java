@@ -0,0 +1,100 @@
+package www.ppkok.com.jyfac;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * 压缩只去除注释和空白，字符串、正则和自动分号插入的语义保持不变
+ */
+class JyfacMinifierTest {
+
+    @Test
+    void keepsCommentMarkersInsideStrings() {
+        assertThat(JyfacMinifier.js("var url = 'https://example.com/a'; // 注释"))
+            .isEqualTo("var url='https://example.com/a';");
+        assertThat(JyfacMinifier.js("var s = \"/* 不是注释 */\";"))
+            .isEqualTo("var s=\"/* 不是注释 */\";");
+        assertThat(JyfacMinifier.js("var s = 'it\\'s // still a string';"))
+            .isEqualTo("var s='it\\'s // still a string';");
+    }
+
+    @Test
+    void keepsTemplateLiteralsVerbatim() {
+        assertThat(JyfacMinifier.js("var t = `a  //  b\n  /* c */ ${x}`;"))
+            .isEqualTo("var t=`a  //  b\n  /* c */ ${x}`;");
+    }
+
+    @Test
+    void keepsRegexLiterals() {
+        assertThat(JyfacMinifier.js("var re = /\\/\\/ [a-z]+/gi;"))
+            .isEqualTo("var re=/\\/\\/ [a-z]+/gi;");
+        assertThat(JyfacMinifier.js("var re = /[/*]  x/;"))
+            .isEqualTo("var re=/[/*]  x/;");
+        assertThat(JyfacMinifier.js("if (ok) return /a b/.test(s);"))
+            .isEqualTo("if(ok)return/a b/.test(s);");
+        assertThat(JyfacMinifier.js("var half = total / 2 / count;"))
+            .isEqualTo("var half=total/2/count;");
+    }
+
+    @Test
+    void keepsLineBreaksThatTerminateStatements() {
+        assertThat(JyfacMinifier.js("var a = 1\nvar b = 2\n"))
+            .isEqualTo("var a=1\nvar b=2");
+        assertThat(JyfacMinifier.js("var a = b\n(function () {})()"))
+            .isEqualTo("var a=b\n(function(){})()");
+        assertThat(JyfacMinifier.js("a = b\n[1, 2].forEach(f)"))
+            .isEqualTo("a=b\n[1,2].forEach(f)");
+        assertThat(JyfacMinifier.js("a\n++b"))
+            .isEqualTo("a\n++b");
+        assertThat(JyfacMinifier.js("var s = 'x'\nlet t = 1"))
+            .isEqualTo("var s='x'\nlet t=1");
+    }
+
+    @Test
+    void commentsContainingLineBreaksStillTerminateStatements() {
+        // return后的换行在注释中同样会插入分号，函数返回undefined
+        assertThat(JyfacMinifier.js("return /*\n*/ x")).isEqualTo("return\nx");
+        assertThat(JyfacMinifier.js("return // 注释\nx")).isEqualTo("return\nx");
+        assertThat(JyfacMinifier.js("a/* 注释 */b")).isEqualTo("a b");
+    }
+
+    @Test
+    void trailingSlashAfterLineBreakIsKept() {
+        assertThat(JyfacMinifier.js("a = b\n/")).isEqualTo("a=b\n/");
+        assertThat(JyfacMinifier.js("a = b /* c */\n  /")).isEqualTo("a=b\n/");
+        assertThat(JyfacMinifier.js("/")).isEqualTo("/");
+    }
+
+    @Test
+    void keepsOperatorsFromMerging() {
+        assertThat(JyfacMinifier.js("a = b - -c + +d")).isEqualTo("a=b- -c+ +d");
+        assertThat(JyfacMinifier.js("a = b++ + c")).isEqualTo("a=b++ +c");
+    }
+
+    @Test
+    void keepsSpacesInsideCalc() {
+        assertThat(JyfacMinifier.css(".a { width: calc(100% - 2 * 8px); }"))
+            .isEqualTo(".a{width:calc(100% - 2 * 8px)}");
+        assertThat(JyfacMinifier.css(".a { margin: calc( -1 * var(--gap) ) calc(1px + 2px); }"))
+            .isEqualTo(".a{margin:calc(-1 * var(--gap) ) calc(1px + 2px)}");
+        assertThat(JyfacMinifier.css(".a { top: calc(50% + (var(--h) - 4px) / 2); }"))
+            .isEqualTo(".a{top:calc(50% + (var(--h) - 4px) / 2)}");
+    }
+
+    @Test
+    void keepsSelectorAndMediaSpacing() {
+        assertThat(JyfacMinifier.css("a :hover { color: red } /* 注释 */ b > i { color: red }"))
+            .isEqualTo("a :hover,b>i{color:red}");
+        assertThat(JyfacMinifier.css("@media (min-width: 600px) and (max-width: 900px) { .a { top: 0 } }"))
+            .isEqualTo("@media (min-width:600px) and (max-width:900px){.a{top:0}}");
+        assertThat(JyfacMinifier.css(".a::after { content: \"a  /* b */\"; }"))
+            .isEqualTo(".a::after{content:\"a  /* b */\"}");
+    }
+
+    @Test
+    void collapsesHtmlIndentation() {
+        assertThat(JyfacMinifier.html("<div>\n    <span>a  b</span>\n</div>"))
+            .isEqualTo("<div><span>a b</span></div>");
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import run.halo.app.extension.SchemeManager;
 import run.halo.app.plugin.PluginContext;
 
 @ExtendWith(MockitoExtension.class)
@@ -13,6 +14,12 @@ class JyfacPluginTest {
     @Mock
     PluginContext context;
 
+    @Mock
+    SchemeManager schemeManager;
+
+    @Mock
+    JyfacLifecycle lifecycle;
+
     @InjectMocks
     JyfacPlugin plugin;
 
@@ -0,0 +1,75 @@
+package www.ppkok.com.jyfac;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * 排除规则优先于包含规则，包含规则为空时表示所有页面
+ */
+class JyfacRouteMatcherTest {
+
+    @Test
+    void emptyRulesMatchEveryPage() {
+        JyfacRouteMatcher matcher = JyfacRouteMatcher.compile("", "  \n ");
+
+        assertThat(matcher).isSameAs(JyfacRouteMatcher.MATCH_ALL);
+        assertThat(matcher.matches("/")).isTrue();
+        assertThat(matcher.matches("/archives/hello")).isTrue();
+    }
+
+    @Test
+    void includeRulesLimitPages() {
+        JyfacRouteMatcher matcher = JyfacRouteMatcher.compile("/\n/archives/**\n", "");
+
+        assertThat(matcher.matches("/")).isTrue();
+        assertThat(matcher.matches("/archives")).isTrue();
+        assertThat(matcher.matches("/archives/2024/hello")).isTrue();
+        assertThat(matcher.matches("/tags/java")).isFalse();
+        assertThat(matcher.matches("/archive")).isFalse();
+    }
+
+    @Test
+    void excludeRulesWinOverIncludeRules() {
+        JyfacRouteMatcher matcher = JyfacRouteMatcher.compile("/archives/**", "/archives/private/**\n/search");
+
+        assertThat(matcher.matches("/archives/public")).isTrue();
+        assertThat(matcher.matches("/archives/private")).isFalse();
+        assertThat(matcher.matches("/archives/private/post")).isFalse();
+        assertThat(matcher.matches("/search")).isFalse();
+    }
+
+    @Test
+    void excludeOnlyRulesKeepOtherPages() {
+        JyfacRouteMatcher matcher = JyfacRouteMatcher.compile(null, "/\n/tags/*");
+
+        assertThat(matcher.matches("/")).isFalse();
+        assertThat(matcher.matches("/tags/java")).isFalse();
+        assertThat(matcher.matches("/tags/java/page/2")).isTrue();
+        assertThat(matcher.matches("/about")).isTrue();
+    }
+
+    @Test
+    void patternsUseWildcardsAndVariables() {
+        JyfacRouteMatcher matcher = JyfacRouteMatcher.compile("/categories/{slug}\n/docs/*.html", "");
+
+        assertThat(matcher.matches("/categories/java")).isTrue();
+        assertThat(matcher.matches("/categories/java/page/2")).isFalse();
+        assertThat(matcher.matches("/docs/intro.html")).isTrue();
+        assertThat(matcher.matches("/docs/intro.md")).isFalse();
+    }
+
+    @Test
+    void invalidRulesAreIgnored() {
+        // 无效的包含规则被忽略后没有包含规则，按所有页面处理
+        JyfacRouteMatcher matcher = JyfacRouteMatcher.compile("/a/**/b", "/{unclosed\n/admin/**");
+
+        assertThat(matcher.matches("/posts")).isTrue();
+        assertThat(matcher.matches("/admin/users")).isFalse();
+    }
+
+    @Test
+    void unknownPathIsInjected() {
+        assertThat(JyfacRouteMatcher.compile("/archives/**", "/").matches(null)).isTrue();
+    }
+}
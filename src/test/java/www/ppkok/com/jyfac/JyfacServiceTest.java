@@ -0,0 +1,69 @@
+package www.ppkok.com.jyfac;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+/**
+ * 配置快照在读取失败和读取缓慢时的行为
+ */
+class JyfacServiceTest {
+
+    private final JyfacSetting first = JyfacTestSupport.setting(Map.of("text", "第一版公告"));
+
+    @Test
+    void failedRefreshKeepsLastSnapshot() {
+        // 每次刷新并发读取全部分组，第二次刷新起的每次读取都失败
+        AtomicInteger refreshes = new AtomicInteger();
+        JyfacService service = new JyfacService(JyfacTestSupport.settingResults(() -> refreshes.get() < 2
+            ? Mono.just(first)
+            : Mono.error(new IllegalStateException("配置存储不可用"))), JyfacTestSupport.metrics());
+        List<JyfacSetting> published = new ArrayList<>();
+        service.updates().subscribe(published::add);
+
+        refreshes.incrementAndGet();
+        assertThat(service.refresh().block()).isEqualTo(first);
+        refreshes.incrementAndGet();
+        assertThat(service.refresh().block()).isNull();
+
+        assertThat(service.getSetting().block())
+            .isEqualTo(first)
+            .isNotEqualTo(JyfacSetting.defaultSetting());
+        assertThat(published).containsExactly(first);
+    }
+
+    @Test
+    void failedFirstReadLeavesNoSnapshot() {
+        JyfacService service = new JyfacService(
+            JyfacTestSupport.settingResults(() -> Mono.error(new IllegalStateException("配置存储不可用"))),
+            JyfacTestSupport.metrics());
+
+        assertThat(service.getSetting().block()).isNull();
+        assertThat(service.peekSetting()).isNull();
+    }
+
+    @Test
+    void slowFirstReadReturnsEmptyWithinBudget() {
+        JyfacService service = new JyfacService(JyfacTestSupport.settingResults(Mono::never),
+            JyfacTestSupport.metrics());
+
+        long start = System.nanoTime();
+        assertThat(service.getSetting().block()).isNull();
+        assertThat(System.nanoTime() - start)
+            .isLessThan(JyfacService.RENDER_BUDGET.multipliedBy(10).toNanos());
+    }
+
+    @Test
+    void missingAdvancedGroupUsesDefaults() {
+        // 旧版本保存的配置中没有高级设置分组
+        JyfacService service = new JyfacService(JyfacTestSupport.groupResults(group ->
+            "advanced".equals(group) ? Mono.empty() : Mono.just(first)), JyfacTestSupport.metrics());
+
+        assertThat(service.refresh().block()).isEqualTo(first);
+    }
+}
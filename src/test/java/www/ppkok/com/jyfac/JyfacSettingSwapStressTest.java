@@ -0,0 +1,167 @@
+package www.ppkok.com.jyfac;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IModelFactory;
+
+/**
+ * 配置切换并发压力测试
+ * 多个线程持续渲染页面，同时由另一个线程反复保存配置，检查每个页面的头部和页脚输出都来自同一个配置版本
+ */
+class JyfacSettingSwapStressTest {
+
+    private static final int RENDER_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final Duration RUN_TIME = Duration.ofSeconds(3);
+
+    /**
+     * 桩配置中心的当前配置，每次保存整体替换
+     */
+    private final AtomicReference<JyfacSetting> configMap = new AtomicReference<>();
+
+    private final IModelFactory modelFactory = JyfacTestSupport.modelFactory();
+
+    private JyfacService service;
+
+    private JyfacBundleService bundleService;
+
+    private JyfacHeadProcessor headProcessor;
+
+    private JyfacFooterProcessor footerProcessor;
+
+    @BeforeEach
+    void setUp() {
+        JyfacMetrics metrics = JyfacTestSupport.metrics();
+        service = new JyfacService(JyfacTestSupport.settingFetcher(configMap::get), metrics);
+        bundleService = JyfacTestSupport.bundleService(service, metrics);
+        JyfacTargetingService targetingService = new JyfacTargetingService();
+        headProcessor = new JyfacHeadProcessor(service, bundleService, targetingService, metrics);
+        footerProcessor = new JyfacFooterProcessor(service, bundleService, targetingService);
+    }
+
+    @Test
+    void inlineRenderNeverMixesVersions() throws InterruptedException {
+        List<JyfacSetting> versions = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            versions.add(version(i, "inline"));
+        }
+        stress(versions);
+    }
+
+    @Test
+    void headAndFooterShareOneVersion() throws InterruptedException {
+        // 注入方式在页脚直出和其他方式之间切换，混用版本时页面会缺少或重复公告HTML
+        stress(List.of(version(0, "footer"), version(1, "inline"), version(2, "footer"),
+            version(3, "bootstrap"), version(4, "footer"), version(5, "external")));
+    }
+
+    /**
+     * 先逐个版本单线程渲染得到期望输出，再在切换配置的同时并发渲染，每个页面都必须与某个版本的期望输出完全一致
+     */
+    private void stress(List<JyfacSetting> versions) throws InterruptedException {
+        Map<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < versions.size(); i++) {
+            save(versions.get(i));
+            assertThat(expected.put(renderPage(), i)).as("版本 %d 的输出与其他版本相同", i).isNull();
+        }
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicLong renders = new AtomicLong();
+        AtomicLong swaps = new AtomicLong();
+        Set<Integer> observed = ConcurrentHashMap.newKeySet();
+        long deadline = System.nanoTime() + RUN_TIME.toNanos();
+        CountDownLatch ready = new CountDownLatch(RENDER_THREADS + 1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < RENDER_THREADS; t++) {
+            threads.add(new Thread(() -> {
+                ready.countDown();
+                try {
+                    ready.await();
+                    while (System.nanoTime() < deadline && failure.get() == null) {
+                        String page = renderPage();
+                        Integer version = expected.get(page);
+                        if (version == null) {
+                            failure.compareAndSet(null, new AssertionError("页面混用了多个配置版本: " + page));
+                            return;
+                        }
+                        observed.add(version);
+                        renders.incrementAndGet();
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "jyfac-render-" + t));
+        }
+        threads.add(new Thread(() -> {
+            ready.countDown();
+            try {
+                ready.await();
+                for (int i = 0; System.nanoTime() < deadline && failure.get() == null; i++) {
+                    save(versions.get(i % versions.size()));
+                    swaps.incrementAndGet();
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        }, "jyfac-admin"));
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(failure.get()).isNull();
+        assertThat(renders.get()).isPositive();
+        assertThat(swaps.get()).isGreaterThan(versions.size());
+        assertThat(observed).hasSizeGreaterThan(1);
+    }
+
+    /**
+     * 保存配置并等待快照刷新和渲染包编译完成
+     * 配置中心的各分组在一次保存中整体替换，刷新完成前不会再次保存，因此一次刷新读到的分组属于同一个版本
+     * 渲染包在后台编译，编译完成前页面继续使用上一个版本
+     */
+    private void save(JyfacSetting setting) {
+        configMap.set(setting);
+        JyfacSetting current = service.refresh().block();
+        bundleService.getBundle(current);
+    }
+
+    /**
+     * 按主题渲染顺序依次执行头部和页脚处理器，返回两者的输出
+     */
+    private String renderPage() {
+        ITemplateContext context = JyfacTestSupport.browserContext(modelFactory, new ConcurrentHashMap<>());
+        IModel head = modelFactory.createModel();
+        headProcessor.process(context, head, null).block();
+        IModel footer = modelFactory.createModel();
+        footerProcessor.process(context, null, null, footer).block();
+        return JyfacTestSupport.write(head) + "\n<!-- footer -->\n" + JyfacTestSupport.write(footer);
+    }
+
+    /**
+     * 每个版本的公告内容、样式和脚本参数都不同，任意两部分混用都会产生期望之外的输出
+     */
+    private static JyfacSetting version(int version, String injectMode) {
+        return JyfacTestSupport.setting(Map.of(
+            "text", "第" + version + "版公告",
+            "multiLineTexts", "第" + version + "版第一条\n第" + version + "版第二条",
+            "borderRadius", 10 + version,
+            "autoHideDelay", version,
+            "scrollInterval", 3 + version,
+            "injectMode", injectMode));
+    }
+}
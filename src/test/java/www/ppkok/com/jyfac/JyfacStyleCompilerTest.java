@@ -0,0 +1,66 @@
+package www.ppkok.com.jyfac;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 修改过的背景和文字颜色在所有主题模式下覆盖预设配色，保持默认值时跟随预设
+ */
+class JyfacStyleCompilerTest {
+
+    @Test
+    void defaultColorsFollowPresets() {
+        String light = themeCss(Map.of("themeMode", "light"));
+        String dark = themeCss(Map.of("themeMode", "dark"));
+        String auto = themeCss(Map.of("themeMode", "auto"));
+
+        assertThat(light).contains("--jyfac-bg:rgba(255, 255, 255, 0.95);--jyfac-text:#333333;")
+            .doesNotContain("@media");
+        assertThat(dark).contains("--jyfac-bg:rgba(33, 37, 41, 0.95);--jyfac-text:#ffffff;")
+            .doesNotContain("@media");
+        assertThat(auto).contains("--jyfac-bg:rgba(255, 255, 255, 0.95);--jyfac-text:#333333;")
+            .contains("@media (prefers-color-scheme:dark){.capsule-container{"
+                + "--jyfac-bg:rgba(33, 37, 41, 0.95);--jyfac-text:#ffffff;");
+    }
+
+    @Test
+    void customColorsOverridePresetsInEveryMode() {
+        for (String mode : new String[] {"light", "dark", "auto"}) {
+            String css = themeCss(Map.of("themeMode", mode, "backgroundColor", "#123456", "textColor", "#abcdef"));
+
+            assertThat(css).as(mode).contains("--jyfac-bg:#123456;--jyfac-text:#abcdef;")
+                .doesNotContain("@media");
+        }
+    }
+
+    @Test
+    void singleCustomColorKeepsThePresetForTheOther() {
+        String dark = themeCss(Map.of("themeMode", "dark", "textColor", "#ffcc00"));
+        String auto = themeCss(Map.of("themeMode", "auto", "backgroundColor", "#000"));
+
+        assertThat(dark).contains("--jyfac-bg:rgba(33, 37, 41, 0.95);--jyfac-text:#ffcc00;");
+        assertThat(auto).contains("--jyfac-bg:#000;--jyfac-text:#333333;")
+            .contains("@media (prefers-color-scheme:dark){.capsule-container{--jyfac-bg:#000;--jyfac-text:#ffffff;");
+    }
+
+    @Test
+    void defaultColorsWrittenDifferentlyStillFollowPresets() {
+        String dark = themeCss(Map.of("themeMode", "dark",
+            "backgroundColor", "rgba(255,255,255,0.95)", "textColor", "#333333"));
+
+        assertThat(dark).contains("--jyfac-bg:rgba(33, 37, 41, 0.95);--jyfac-text:#ffffff;");
+    }
+
+    @Test
+    void colorsCannotEscapeTheDeclaration() {
+        String css = themeCss(Map.of("themeMode", "light", "backgroundColor", "red;}</style><script>"));
+
+        assertThat(css).contains("--jyfac-bg:red/stylescript;").doesNotContain("</style>");
+    }
+
+    private static String themeCss(Map<String, Object> overrides) {
+        return JyfacStyleCompiler.themeCss(JyfacTestSupport.setting(overrides));
+    }
+}
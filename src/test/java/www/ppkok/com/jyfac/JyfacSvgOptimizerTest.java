@@ -0,0 +1,150 @@
+package www.ppkok.com.jyfac;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 图标优化后每一段路径的终点与原图的偏差不超过舍入精度
+ */
+class JyfacSvgOptimizerTest {
+
+    private static final Pattern PATH_DATA = Pattern.compile("\\sd=\"([^\"]*)\"");
+
+    private static final Pattern TOKEN =
+        Pattern.compile("[MmLlHhVvCcSsQqTtAaZz]|[-+]?(?:\\d+\\.?\\d*|\\.\\d+)(?:[eE][-+]?\\d+)?");
+
+    @Test
+    void relativeCoordinatesDoNotAccumulateRoundingError() {
+        // 逐个舍入到一位小数时每段丢失0.03，100段后终点偏移3
+        StringBuilder path = new StringBuilder("M0 0");
+        for (int i = 0; i < 100; i++) {
+            path.append("l1.33 0.33");
+        }
+        String svg = "<svg viewBox=\"0 0 1024 1024\"><path d=\"" + path + "\"/></svg>";
+
+        assertEndpointsWithin(svg, JyfacSvgOptimizer.optimize(svg), 0.05);
+    }
+
+    @Test
+    void defaultIconKeepsItsShape() {
+        String optimized = JyfacSvgOptimizer.optimize(JyfacSetting.DEFAULT_ICON_SVG);
+
+        assertEndpointsWithin(JyfacSetting.DEFAULT_ICON_SVG, optimized, 0.05);
+        assertThat(optimized.length()).isLessThan(JyfacSetting.DEFAULT_ICON_SVG.length());
+    }
+
+    @Test
+    void keepsAtLeastOneDecimalOnLargeCanvases() {
+        String svg = "<svg viewBox=\"0 0 1024 1024\"><path d=\"M10.04 20.06L30.449 40.55z\"/></svg>";
+
+        assertThat(JyfacSvgOptimizer.optimize(svg)).contains("d=\"M10 20.1L30.4 40.6z\"");
+    }
+
+    @Test
+    void closePathReturnsToSubpathStart() {
+        String svg = "<svg viewBox=\"0 0 1024 1024\"><path d=\"M.26 .26l10.33 0 0 10.33z"
+            + "m5.26 5.26l1.01 1.01\"/></svg>";
+
+        assertEndpointsWithin(svg, JyfacSvgOptimizer.optimize(svg), 0.05);
+    }
+
+    @Test
+    void arcFlagsAndRadiiAreNotTreatedAsCoordinates() {
+        String svg = "<svg viewBox=\"0 0 24 24\"><path d=\"M2 2a3.3333 3.3333 0 0 1 4.4444 4.4444"
+            + "a1 1 0 1 0 .5555 .5555\"/></svg>";
+
+        assertThat(JyfacSvgOptimizer.optimize(svg))
+            .contains("d=\"M2 2a3.33 3.33 0 0 1 4.44 4.44a1 1 0 1 0 .56.56\"");
+        assertEndpointsWithin(svg, JyfacSvgOptimizer.optimize(svg), 0.005);
+    }
+
+    @Test
+    void stripsEditorMetadata() {
+        String svg = "<?xml version=\"1.0\"?><svg t=\"1760148892394\" version=\"1.1\" p-id=\"6215\" "
+            + "viewBox=\"0 0 24 24\"><!-- icon --><path d=\"M1 1h2\" p-id=\"6216\"/></svg>";
+
+        assertThat(JyfacSvgOptimizer.optimize(svg))
+            .isEqualTo("<svg viewBox=\"0 0 24 24\"><path d=\"M1 1h2\"/></svg>");
+        assertThat(JyfacSetting.DEFAULT_ICON_SVG).doesNotContain(" t=\"", "p-id=");
+    }
+
+    /**
+     * 比较两个SVG中每条路径每一段终点的绝对位置
+     */
+    private static void assertEndpointsWithin(String original, String optimized, double tolerance) {
+        List<double[]> before = endpoints(original);
+        List<double[]> after = endpoints(optimized);
+        assertThat(after).hasSameSizeAs(before);
+        // 恰好落在两个舍入值中间的坐标偏差等于半个精度，比较时容许浮点误差
+        double limit = tolerance + 1e-9;
+        for (int i = 0; i < before.size(); i++) {
+            assertThat(after.get(i)[0]).as("第 %d 段终点x", i).isCloseTo(before.get(i)[0], offset(limit));
+            assertThat(after.get(i)[1]).as("第 %d 段终点y", i).isCloseTo(before.get(i)[1], offset(limit));
+        }
+    }
+
+    private static List<double[]> endpoints(String svg) {
+        List<double[]> result = new ArrayList<>();
+        Matcher path = PATH_DATA.matcher(svg);
+        while (path.find()) {
+            List<String> tokens = new ArrayList<>();
+            Matcher token = TOKEN.matcher(path.group(1));
+            while (token.find()) {
+                tokens.add(token.group());
+            }
+            double x = 0;
+            double y = 0;
+            double startX = 0;
+            double startY = 0;
+            char command = 0;
+            int i = 0;
+            while (i < tokens.size()) {
+                String current = tokens.get(i);
+                if (Character.isLetter(current.charAt(0))) {
+                    command = current.charAt(0);
+                    i++;
+                    if (command == 'Z' || command == 'z') {
+                        x = startX;
+                        y = startY;
+                        result.add(new double[] {x, y});
+                    }
+                    continue;
+                }
+                char upper = Character.toUpperCase(command);
+                boolean relative = command != upper;
+                int arity = switch (upper) {
+                    case 'H', 'V' -> 1;
+                    case 'M', 'L', 'T' -> 2;
+                    case 'S', 'Q' -> 4;
+                    case 'C' -> 6;
+                    default -> 7;
+                };
+                double[] values = new double[arity];
+                for (int j = 0; j < arity; j++) {
+                    values[j] = Double.parseDouble(tokens.get(i++));
+                }
+                if (upper == 'H') {
+                    x = relative ? x + values[0] : values[0];
+                } else if (upper == 'V') {
+                    y = relative ? y + values[0] : values[0];
+                } else {
+                    x = relative ? x + values[arity - 2] : values[arity - 2];
+                    y = relative ? y + values[arity - 1] : values[arity - 1];
+                }
+                if (upper == 'M') {
+                    startX = x;
+                    startY = y;
+                    command = relative ? 'l' : 'L';
+                }
+                result.add(new double[] {x, y});
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+package www.ppkok.com.jyfac;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IModelFactory;
+
+/**
+ * 按请求头跳过注入只在开启后生效，未填写标识时使用内置列表
+ * 按请求头或关闭记录跳过注入的页面只允许浏览器缓存
+ */
+class JyfacTargetingServiceTest {
+
+    private static final String GOOGLEBOT =
+        "Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)";
+
+    private final IModelFactory modelFactory = JyfacTestSupport.modelFactory();
+
+    private final JyfacTargetingService targetingService = new JyfacTargetingService();
+
+    @Test
+    void injectsForEveryRequestByDefault() {
+        JyfacSetting setting = JyfacSetting.defaultSetting();
+
+        assertThat(skipReason(setting, "GET", GOOGLEBOT)).isNull();
+        assertThat(skipReason(setting, "HEAD", JyfacTestSupport.BROWSER_USER_AGENT)).isNull();
+        assertThat(skipReason(setting, "GET", null)).isNull();
+    }
+
+    @Test
+    void skipsBuiltInBotsAndProbesWhenEnabled() {
+        JyfacSetting setting = JyfacTestSupport.setting(Map.of("botBypass", true));
+
+        assertThat(skipReason(setting, "GET", GOOGLEBOT)).isEqualTo("bot");
+        assertThat(skipReason(setting, "HEAD", JyfacTestSupport.BROWSER_USER_AGENT)).isEqualTo("probe");
+        assertThat(skipReason(setting, "GET", null)).isEqualTo("probe");
+        assertThat(skipReason(setting, "GET", JyfacTestSupport.BROWSER_USER_AGENT)).isNull();
+    }
+
+    @Test
+    void customAgentsReplaceBuiltInList() {
+        JyfacSetting setting = JyfacTestSupport.setting(Map.of("botBypass", true, "botUserAgents", "MyMonitor\n"));
+
+        assertThat(skipReason(setting, "GET", "mymonitor/1.0")).isEqualTo("bot");
+        assertThat(skipReason(setting, "GET", GOOGLEBOT)).isNull();
+    }
+
+    @Test
+    void privateCacheControlKeepsOtherDirectives() {
+        assertThat(JyfacSkipCacheFilter.privateCacheControl(null)).isEqualTo("private");
+        assertThat(JyfacSkipCacheFilter.privateCacheControl("public, max-age=600"))
+            .isEqualTo("private, max-age=600");
+        assertThat(JyfacSkipCacheFilter.privateCacheControl("no-cache")).isEqualTo("private, no-cache");
+    }
+
+    @Test
+    void dismissedPageVariesByCookieWithoutBypassSwitches() {
+        JyfacSetting setting = JyfacSetting.defaultSetting();
+        JyfacService service = new JyfacService(JyfacTestSupport.settingFetcher(() -> setting),
+            JyfacTestSupport.metrics());
+        JyfacBundleService bundleService = JyfacTestSupport.bundleService(service, JyfacTestSupport.metrics());
+        JyfacHeadProcessor headProcessor =
+            new JyfacHeadProcessor(service, bundleService, targetingService, JyfacTestSupport.metrics());
+        String dismissKey = bundleService.getBundle(setting).dismissKey();
+
+        Map<String, Object> attributes = new HashMap<>();
+        ITemplateContext context = JyfacTestSupport.webContext(modelFactory, "GET", "/", Map.of(
+            "User-Agent", JyfacTestSupport.BROWSER_USER_AGENT,
+            "Cookie", JyfacTargetingService.DISMISS_COOKIE + "=" + dismissKey), attributes);
+        IModel head = modelFactory.createModel();
+        headProcessor.process(context, head, null).block();
+
+        assertThat(JyfacTestSupport.write(head)).isEmpty();
+        assertThat(attributes).containsEntry(JyfacSkipCacheFilter.SKIP_ATTRIBUTE, "dismissed");
+
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+        new JyfacSkipCacheFilter(service).filter(exchange, chained -> {
+            chained.getAttributes().put(JyfacSkipCacheFilter.SKIP_ATTRIBUTE, attributes.get(
+                JyfacSkipCacheFilter.SKIP_ATTRIBUTE));
+            chained.getResponse().getHeaders().setCacheControl("public, max-age=600");
+            return chained.getResponse().setComplete();
+        }).block();
+
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        assertThat(headers.getVary()).containsExactly(HttpHeaders.COOKIE);
+        assertThat(headers.getCacheControl()).isEqualTo("private, max-age=600");
+    }
+
+    @Test
+    void undismissedPageKeepsSharedCaching() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+        JyfacService service = new JyfacService(JyfacTestSupport.settingFetcher(JyfacSetting::defaultSetting),
+            JyfacTestSupport.metrics());
+        service.refresh().block();
+        new JyfacSkipCacheFilter(service).filter(exchange, chained -> {
+            chained.getResponse().getHeaders().setCacheControl("public, max-age=600");
+            return chained.getResponse().setComplete();
+        }).block();
+
+        assertThat(exchange.getResponse().getHeaders().getVary()).isEmpty();
+        assertThat(exchange.getResponse().getHeaders().getCacheControl()).isEqualTo("public, max-age=600");
+    }
+
+    private String skipReason(JyfacSetting setting, String method, String userAgent) {
+        Map<String, String> headers = new HashMap<>();
+        if (userAgent != null) {
+            headers.put("User-Agent", userAgent);
+        }
+        ITemplateContext context =
+            JyfacTestSupport.webContext(modelFactory, method, "/", headers, new HashMap<>());
+        return targetingService.skipReason(context, setting);
+    }
+}
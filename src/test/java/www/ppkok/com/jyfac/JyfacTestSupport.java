@@ -0,0 +1,191 @@
+package www.ppkok.com.jyfac;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.context.IWebContext;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IModelFactory;
+import org.thymeleaf.spring6.SpringWebFluxTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.web.IWebExchange;
+import org.thymeleaf.web.IWebRequest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import run.halo.app.extension.ReactiveExtensionClient;
+import run.halo.app.plugin.ReactiveSettingFetcher;
+
+/**
+ * 测试用的桩对象
+ * 使用动态代理实现Halo和Thymeleaf接口，与基准测试的桩对象保持一致
+ */
+final class JyfacTestSupport {
+
+    static final String BROWSER_USER_AGENT =
+        "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 Chrome/126.0 Safari/537.36";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private JyfacTestSupport() {
+    }
+
+    /**
+     * 在默认设置基础上覆盖部分配置项
+     */
+    @SuppressWarnings("unchecked")
+    static JyfacSetting setting(Map<String, Object> overrides) {
+        Map<String, Object> values = MAPPER.convertValue(JyfacSetting.defaultSetting(), Map.class);
+        values.putAll(overrides);
+        return MAPPER.convertValue(values, JyfacSetting.class);
+    }
+
+    static JyfacMetrics metrics() {
+        return new JyfacMetrics(new SimpleMeterRegistry());
+    }
+
+    /**
+     * 每次调用fetch都返回给定配置的设置获取器，配置为null时视为分组不存在
+     */
+    static ReactiveSettingFetcher settingFetcher(Supplier<JyfacSetting> setting) {
+        return settingResults(() -> Mono.justOrEmpty(setting.get()));
+    }
+
+    /**
+     * 每次调用fetch都订阅给定结果的设置获取器，用于模拟读取失败
+     */
+    static ReactiveSettingFetcher settingResults(Supplier<Mono<JyfacSetting>> result) {
+        return groupResults(group -> result.get());
+    }
+
+    /**
+     * 按分组名返回读取结果的设置获取器
+     */
+    static ReactiveSettingFetcher groupResults(Function<String, Mono<JyfacSetting>> result) {
+        return (ReactiveSettingFetcher) Proxy.newProxyInstance(
+            ReactiveSettingFetcher.class.getClassLoader(),
+            new Class<?>[] {ReactiveSettingFetcher.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "fetch" -> Mono.defer(() -> result.apply((String) args[0]));
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> "StubSettingFetcher";
+                default -> Mono.empty();
+            });
+    }
+
+    /**
+     * 没有定时公告时的渲染包服务
+     */
+    static JyfacBundleService bundleService(JyfacService service, JyfacMetrics metrics) {
+        return new JyfacBundleService(new JyfacBundleCompiler(), metrics, service,
+            new JyfacAnnouncementService(extensionClient(), event -> {
+            }));
+    }
+
+    static ReactiveExtensionClient extensionClient() {
+        return (ReactiveExtensionClient) Proxy.newProxyInstance(
+            ReactiveExtensionClient.class.getClassLoader(),
+            new Class<?>[] {ReactiveExtensionClient.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "list" -> Flux.empty();
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> "StubExtensionClient";
+                default -> Mono.empty();
+            });
+    }
+
+    /**
+     * 与Halo相同的模板引擎的模型工厂，标准方言依赖的表达式语言为SpEL
+     */
+    static IModelFactory modelFactory() {
+        return new SpringWebFluxTemplateEngine().getConfiguration().getModelFactory(TemplateMode.HTML);
+    }
+
+    /**
+     * 普通浏览器以GET请求访问首页的模板上下文
+     */
+    static ITemplateContext browserContext(IModelFactory modelFactory, Map<String, Object> attributes) {
+        return webContext(modelFactory, "GET", "/", Map.of("User-Agent", BROWSER_USER_AGENT), attributes);
+    }
+
+    /**
+     * 模板上下文，请求属性保存在给定的映射中
+     */
+    static ITemplateContext webContext(IModelFactory modelFactory, String method, String path,
+                                       Map<String, String> headers, Map<String, Object> attributes) {
+        Map<String, String> headerValues = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headerValues.putAll(headers);
+        IWebRequest request = (IWebRequest) Proxy.newProxyInstance(
+            IWebRequest.class.getClassLoader(),
+            new Class<?>[] {IWebRequest.class},
+            (proxy, invoked, args) -> switch (invoked.getName()) {
+                case "getMethod" -> method;
+                case "getPathWithinApplication" -> path;
+                case "getHeaderValue" -> headerValues.get((String) args[0]);
+                case "getCookieValue" -> cookieValue(headerValues.get("Cookie"), (String) args[0]);
+                default -> defaultValue(invoked.getReturnType());
+            });
+        IWebExchange exchange = (IWebExchange) Proxy.newProxyInstance(
+            IWebExchange.class.getClassLoader(),
+            new Class<?>[] {IWebExchange.class},
+            (proxy, invoked, args) -> switch (invoked.getName()) {
+                case "getRequest" -> request;
+                case "getAttributeValue" -> attributes.get((String) args[0]);
+                case "setAttributeValue" -> attributes.put((String) args[0], args[1]);
+                default -> defaultValue(invoked.getReturnType());
+            });
+        return (ITemplateContext) Proxy.newProxyInstance(
+            ITemplateContext.class.getClassLoader(),
+            new Class<?>[] {ITemplateContext.class, IWebContext.class},
+            (proxy, invoked, args) -> switch (invoked.getName()) {
+                case "getModelFactory" -> modelFactory;
+                case "getExchange" -> exchange;
+                case "getLocale" -> Locale.SIMPLIFIED_CHINESE;
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> defaultValue(invoked.getReturnType());
+            });
+    }
+
+    /**
+     * 按顺序输出模型中的全部事件
+     */
+    static String write(IModel model) {
+        StringWriter writer = new StringWriter();
+        try {
+            for (int i = 0; i < model.size(); i++) {
+                model.get(i).write(writer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    private static String cookieValue(String cookieHeader, String name) {
+        if (cookieHeader == null) {
+            return null;
+        }
+        for (String cookie : cookieHeader.split(";")) {
+            String[] pair = cookie.trim().split("=", 2);
+            if (pair.length == 2 && pair[0].equals(name)) {
+                return pair[1];
+            }
+        }
+        return null;
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        return type == boolean.class ? Boolean.FALSE : null;
+    }
+}